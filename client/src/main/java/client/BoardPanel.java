@@ -0,0 +1,261 @@
+package client;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BoardPanel - one custom-painted component for a whole grid.
+ *
+ * Replaces a GridLayout of JButtons: cell state lives in a byte array,
+ * clicks are mapped to cells by arithmetic, a state change repaints only
+ * that cell's rectangle, and every flash animation of every board is driven
+ * by one shared frame timer that only runs while something is animating.
+ */
+public class BoardPanel extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    // ======== Cell states ========
+    public static final byte EMPTY = 0;
+    public static final byte SHIP = 1;
+    public static final byte MISS = 2;
+    public static final byte HIT = 3;
+    public static final byte SUNK = 4;
+
+    /** Called on the EDT when the user clicks a cell of an interactive board. */
+    public interface CellListener {
+        void cellClicked(int x, int y);
+    }
+
+    private static final int GAP = 3;
+    private static final int FLASH_MS = 350;
+
+    private final int size;
+    private final Color baseColor;
+    private final byte[] cells;
+    // end of the running flash per cell (0 = none) and its color
+    private final long[] flashUntil;
+    private final int[] flashRgb;
+    private int activeFlashes = 0;
+
+    private boolean interactive = true;
+    private int hover = -1;
+    private CellListener listener;
+
+    // geometry, recomputed on paint/click from the current bounds
+    private int cellSize, originX, originY;
+
+    private final Color shipColor = new Color(0x9E9E9E);
+    private final Color hoverColor = new Color(0xBBDEFB);
+
+    public BoardPanel(int size, Color baseColor) {
+        this.size = size;
+        this.baseColor = baseColor;
+        this.cells = new byte[size * size];
+        this.flashUntil = new long[size * size];
+        this.flashRgb = new int[size * size];
+        setOpaque(false);
+        setFont(getFont() == null ? new Font(Font.SANS_SERIF, Font.BOLD, 14) : getFont().deriveFont(Font.BOLD));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0 && interactive && listener != null) {
+                    listener.cellClicked(cell / size, cell % size);
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHover(interactive ? cellAt(e.getX(), e.getY()) : -1);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHover(-1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    public void setCellListener(CellListener l) {
+        this.listener = l;
+    }
+
+    public byte getCell(int x, int y) {
+        return cells[x * size + y];
+    }
+
+    public void setCell(int x, int y, byte state) {
+        int i = x * size + y;
+        if (cells[i] == state) return;
+        cells[i] = state;
+        repaintCell(i);
+    }
+
+    /** Shows color over the cell for a short moment, then back to its state color. */
+    public void flash(int x, int y, Color color) {
+        int i = x * size + y;
+        if (flashUntil[i] == 0) activeFlashes++;
+        flashUntil[i] = System.currentTimeMillis() + FLASH_MS;
+        flashRgb[i] = color.getRGB();
+        repaintCell(i);
+        FrameClock.register(this);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(cells, EMPTY);
+        java.util.Arrays.fill(flashUntil, 0);
+        activeFlashes = 0;
+        repaint();
+    }
+
+    public boolean isInteractive() {
+        return interactive;
+    }
+
+    public void setInteractive(boolean interactive) {
+        if (this.interactive == interactive) return;
+        this.interactive = interactive;
+        setCursor(interactive ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+        if (!interactive) setHover(-1);
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int cell = Math.max(12, Math.min(48, 480 / size));
+        int side = size * cell + (size - 1) * GAP;
+        return new Dimension(side, side);
+    }
+
+    // ----------------- painting -----------------
+    @Override
+    protected void paintComponent(Graphics g) {
+        layoutCells();
+        if (cellSize <= 0) return;
+
+        // only the cells that intersect the dirty region
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int pitch = cellSize + GAP;
+        int colFrom = clamp((clip.x - originX) / pitch);
+        int colTo = clamp((clip.x + clip.width - originX) / pitch);
+        int rowFrom = clamp((clip.y - originY) / pitch);
+        int rowTo = clamp((clip.y + clip.height - originY) / pitch);
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        FontMetrics fm = g2.getFontMetrics();
+        long now = System.currentTimeMillis();
+
+        for (int x = rowFrom; x <= rowTo; x++) {
+            for (int y = colFrom; y <= colTo; y++) {
+                int i = x * size + y;
+                int px = originX + y * pitch, py = originY + x * pitch;
+
+                g2.setColor(cellColor(i, now));
+                g2.fillRect(px, py, cellSize, cellSize);
+                g2.setColor(Color.GRAY);
+                g2.drawRect(px, py, cellSize - 1, cellSize - 1);
+
+                String mark = mark(cells[i]);
+                if (mark != null) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(mark, px + (cellSize - fm.stringWidth(mark)) / 2,
+                            py + (cellSize - fm.getHeight()) / 2 + fm.getAscent());
+                }
+            }
+        }
+    }
+
+    private Color cellColor(int i, long now) {
+        if (flashUntil[i] > now) return new Color(flashRgb[i]);
+        if (i == hover && cells[i] == EMPTY) return hoverColor;
+        return cells[i] == SHIP ? shipColor : baseColor;
+    }
+
+    private static String mark(byte state) {
+        switch (state) {
+            case MISS: return "o";
+            case HIT: return "X";
+            case SUNK: return "S";
+            default: return null;
+        }
+    }
+
+    // ----------------- geometry -----------------
+    private void layoutCells() {
+        int side = Math.min(getWidth(), getHeight());
+        cellSize = (side - (size - 1) * GAP) / size;
+        int used = size * cellSize + (size - 1) * GAP;
+        originX = (getWidth() - used) / 2;
+        originY = (getHeight() - used) / 2;
+    }
+
+    /** Cell index under (px, py), or -1 for a gap or outside the grid. */
+    private int cellAt(int px, int py) {
+        layoutCells();
+        if (cellSize <= 0) return -1;
+        int pitch = cellSize + GAP;
+        int cx = px - originX, cy = py - originY;
+        if (cx < 0 || cy < 0) return -1;
+        int col = cx / pitch, row = cy / pitch;
+        if (col >= size || row >= size || cx % pitch >= cellSize || cy % pitch >= cellSize) return -1;
+        return row * size + col;
+    }
+
+    private int clamp(int v) {
+        return Math.max(0, Math.min(size - 1, v));
+    }
+
+    private void repaintCell(int i) {
+        layoutCells();
+        int pitch = cellSize + GAP;
+        repaint(originX + (i % size) * pitch, originY + (i / size) * pitch, cellSize, cellSize);
+    }
+
+    private void setHover(int cell) {
+        if (cell == hover) return;
+        int old = hover;
+        hover = cell;
+        if (old >= 0) repaintCell(old);
+        if (cell >= 0) repaintCell(cell);
+    }
+
+    /** Ends expired flashes; returns true while some flash is still running. */
+    private boolean tick(long now) {
+        if (activeFlashes == 0) return false;
+        for (int i = 0; i < flashUntil.length; i++) {
+            if (flashUntil[i] != 0 && flashUntil[i] <= now) {
+                flashUntil[i] = 0;
+                activeFlashes--;
+                repaintCell(i);
+            }
+        }
+        return activeFlashes > 0;
+    }
+
+    /** One ~60 fps Swing timer shared by every board, stopped when nothing animates. */
+    private static final class FrameClock {
+        private static final List<BoardPanel> boards = new ArrayList<>();
+        private static final Timer timer = new Timer(16, e -> onFrame());
+
+        static void register(BoardPanel b) {
+            if (!boards.contains(b)) boards.add(b);
+            if (!timer.isRunning()) timer.start();
+        }
+
+        private static void onFrame() {
+            long now = System.currentTimeMillis();
+            boards.removeIf(b -> !b.tick(now));
+            if (boards.isEmpty()) timer.stop();
+        }
+    }
+}
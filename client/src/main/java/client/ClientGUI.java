@@ -4,9 +4,14 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.*;
-import java.net.*;
+import client.sdk.Connection;
+import client.sdk.GameListener;
+import client.sdk.StateSnapshot;
+import protocol.Messages;
+import protocol.ShotResult;
+
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -17,28 +22,37 @@ import java.util.concurrent.atomic.AtomicInteger;
  *  - Server -> Client:
  *     MSG|text
  *     ASKMODE
- *     TURN|YOU  or TURN|OPP
- *     RESULT|HIT|x|y
- *     RESULT|MISS|x|y
- *     RESULT|SUNK|x|y
- *     OPPONENT_FIRE|HIT|x|y
- *     OPPONENT_FIRE|MISS|x|y
- *     END|WIN | END|LOSE | END|ABANDON
+ *     START   (a game begins, seq restarts)
+ *     TURN|YOU|seq  or TURN|OPP|seq
+ *     RESULT|HIT|x|y|seq
+ *     RESULT|MISS|x|y|seq
+ *     RESULT|SUNK|x|y|seq
+ *     RESULT|ALREADY|x|y
+ *     OPPONENT_FIRE|HIT|x|y|seq
+ *     OPPONENT_FIRE|MISS|x|y|seq
+ *     STATE|seq|size|mine|theirs|turn|over   (both boards, answer to STATE)
+ *     END|WIN|seq | END|LOSE|seq | END|ABANDON|seq
  *     ERROR|message
  *     OPPONENT_LEFT|message
  *     CHAT|from|text
+ *     LEADERBOARD|GLOBAL|rank:pseudo:score:wins:losses;...  (same for DAY)
  *
  *  - Client -> Server (plain text lines)
  *     pseudo is sent as first line after connection
- *     mode selection: "1" or "2" in response to ASKMODE
+ *     mode selection in response to ASKMODE: "1" (player vs player), "2" (AI),
+ *     "3" (tournament) or "4" (hard AI)
  *     SHOT syntax expected by server: "SHOT|x|y" (this GUI sends that)
  *     QUIT by sending "QUIT"
  *     CHAT by sending "CHAT|text"
+ *     LEADERBOARD or LEADERBOARD|DAY to request a ranking
+ *     STATE to fetch both boards (sent when a game starts and by "Afficher mes bateaux")
+ *
+ * Networking goes through the UI-free SDK in client.sdk (Connection + GameListener).
  *
- * How to compile:
- *   javac -d out src/client/ClientGUI.java
+ * How to compile (from the repository root):
+ *   mvn package
  * Run:
- *   java -cp out client.ClientGUI
+ *   java -p protocol/target/protocol-1.0-SNAPSHOT.jar:client/target/client-1.0-SNAPSHOT.jar -m bataillenavale.client/client.ClientGUI
  *
  * Adjust default SERVER_HOST and SERVER_PORT in UI if needed.
  */
@@ -60,28 +74,40 @@ public class ClientGUI extends JFrame {
     private final JButton disconnectBtn = new JButton("Disconnect");
     private final JButton quitBtn = new JButton("Quit Game");
 
-    private final JButton[][] myGridButtons = new JButton[GRID_SIZE][GRID_SIZE];
-    private final JButton[][] enemyGridButtons = new JButton[GRID_SIZE][GRID_SIZE];
+    private final BoardPanel myBoard = new BoardPanel(GRID_SIZE, Color.LIGHT_GRAY);
+    private final BoardPanel enemyBoard = new BoardPanel(GRID_SIZE, Color.WHITE);
 
     private final JLabel statusLabel = new JLabel("Disconnected");
     private final JLabel turnLabel = new JLabel("Turn: -");
     private final JLabel shipsLabel = new JLabel("Ships left: -");
     private final JLabel timerLabel = new JLabel("Timer: -");
 
+    // ======== Log & chat history (bounded) ========
+    private static final int LOG_LINES = 1000;
+    private static final int CHAT_LINES = 500;
+
     private final JTextArea logArea = new JTextArea();
-    private final DefaultListModel<String> chatModel = new DefaultListModel<>();
+    private final RingListModel<String> chatModel = new RingListModel<>(CHAT_LINES);
     private final JList<String> chatList = new JList<>(chatModel);
+
+    // log lines kept in the text area; pending text is appended once per EDT tick
+    private final RingBuffer<String> logLines = new RingBuffer<>(LOG_LINES);
+    private final StringBuilder logPending = new StringBuilder();
+    private int logEvictedChars = 0;
+    private boolean chatScrollPending = false;
     private final JTextField chatInput = new JTextField();
 
     // settings
     private final JSpinner timerSpinner = new JSpinner(new SpinnerNumberModel(20, 5, 120, 1));
-    private final JComboBox<String> modeCombo = new JComboBox<>(new String[]{"JvJ (1)", "IA (2)"});
+    private final JComboBox<String> modeCombo = new JComboBox<>(new String[]{"JvJ (1)", "IA (2)", "Tournoi (3)", "IA difficile (4)"});
 
     // ======== Networking ========
-    private volatile Socket socket;
-    private volatile BufferedReader in;
-    private volatile PrintWriter out;
-    private Thread listenerThread;
+    private volatile Connection conn;
+
+    // UI work from the network, drained in batches on the EDT (at most one drain queued at a time)
+    private final ConcurrentLinkedQueue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private boolean draining = false;
 
     // state
     private volatile boolean myTurn = false;
@@ -199,17 +225,8 @@ public class ClientGUI extends JFrame {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(new TitledBorder("Votre plateau"));
 
-        JPanel grid = new JPanel(new GridLayout(GRID_SIZE, GRID_SIZE, 3, 3));
-        for (int i = 0; i < GRID_SIZE; i++) {
-            for (int j = 0; j < GRID_SIZE; j++) {
-                JButton b = new JButton();
-                b.setEnabled(false); // player's own grid is not clickable in this UI (we show ships)
-                b.setBackground(Color.LIGHT_GRAY);
-                myGridButtons[i][j] = b;
-                grid.add(b);
-            }
-        }
-        panel.add(grid, BorderLayout.CENTER);
+        myBoard.setInteractive(false); // player's own grid is not clickable in this UI (we show ships)
+        panel.add(myBoard, BorderLayout.CENTER);
         return panel;
     }
 
@@ -217,18 +234,8 @@ public class ClientGUI extends JFrame {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(new TitledBorder("Grille ennemie (cliquez pour tirer)"));
 
-        JPanel grid = new JPanel(new GridLayout(GRID_SIZE, GRID_SIZE, 3, 3));
-        for (int i = 0; i < GRID_SIZE; i++) {
-            for (int j = 0; j < GRID_SIZE; j++) {
-                final int x = i, y = j;
-                JButton b = new JButton();
-                b.setBackground(Color.WHITE);
-                b.addActionListener(e -> onEnemyCellClicked(x, y));
-                enemyGridButtons[i][j] = b;
-                grid.add(b);
-            }
-        }
-        panel.add(grid, BorderLayout.CENTER);
+        enemyBoard.setCellListener(this::onEnemyCellClicked);
+        panel.add(enemyBoard, BorderLayout.CENTER);
         return panel;
     }
 
@@ -273,7 +280,7 @@ public class ClientGUI extends JFrame {
         JPanel controls = new JPanel(new GridLayout(4,1,6,6));
         JButton clearLog = new JButton("Clear Log");
         controls.add(clearLog);
-        clearLog.addActionListener(e -> logArea.setText(""));
+        clearLog.addActionListener(e -> clearLog());
 
         JButton showHelp = new JButton("Aide protocole");
         controls.add(showHelp);
@@ -283,7 +290,9 @@ public class ClientGUI extends JFrame {
         controls.add(enableShips);
         enableShips.addActionListener(e -> revealMyShips());
 
-        controls.add(new JLabel(" "));
+        JButton leaderboard = new JButton("Classement");
+        controls.add(leaderboard);
+        leaderboard.addActionListener(e -> requestLeaderboard());
 
         panel.add(controls, BorderLayout.SOUTH);
         return panel;
@@ -294,9 +303,7 @@ public class ClientGUI extends JFrame {
         connectBtn.addActionListener(e -> connectToServer());
         disconnectBtn.addActionListener(e -> disconnectFromServer());
         quitBtn.addActionListener(e -> {
-            if (out != null) {
-                out.println("QUIT");
-            }
+            sendLine("QUIT");
             setInGame(false);
         });
 
@@ -314,50 +321,34 @@ public class ClientGUI extends JFrame {
             return;
         }
         final String pseudo = pseudoField.getText().trim();
-        if (pseudo.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Entrez un pseudo", "Erreur", JOptionPane.ERROR_MESSAGE);
+        if (!Messages.validPseudo(pseudo)) {
+            JOptionPane.showMessageDialog(this, "Entrez un pseudo sans | : ;", "Erreur", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
         connectBtn.setEnabled(false);
-        new Thread(() -> {
-            try {
-                socket = new Socket(host, port);
-                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                out = new PrintWriter(socket.getOutputStream(), true);
-                connected = true;
-                SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Connected to " + host + ":" + port);
-                    connectBtn.setEnabled(false);
-                    disconnectBtn.setEnabled(true);
-                });
-
-                // send pseudo as first line (server expects)
-                out.println(pseudo);
-                log("Sent pseudo: " + pseudo);
-
-                // start listener
-                listenerThread = new Thread(this::listenLoop, "ListenerThread");
-                listenerThread.setDaemon(true);
-                listenerThread.start();
-
-            } catch (IOException ex) {
-                SwingUtilities.invokeLater(() -> {
-                    JOptionPane.showMessageDialog(this, "Connection failed: " + ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
-                    connectBtn.setEnabled(true);
-                    statusLabel.setText("Disconnected");
-                });
-                log("Connection error: " + ex.getMessage());
+        Connection.open(host, port, new ServerEvents(pseudo)).whenComplete((c, ex) -> {
+            if (ex == null) {
+                post(() -> statusLabel.setText("Connected to " + host + ":" + port));
+                return;
             }
-        }).start();
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            log("Connection error: " + cause.getMessage());
+            SwingUtilities.invokeLater(() -> {
+                JOptionPane.showMessageDialog(this, "Connection failed: " + cause.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                connectBtn.setEnabled(true);
+                statusLabel.setText("Disconnected");
+            });
+        });
     }
 
     private void disconnectFromServer() {
         if (!connected) return;
-        try {
-            if (out != null) out.println("QUIT");
-            if (socket != null) socket.close();
-        } catch (IOException ignored) {}
+        Connection c = conn;
+        if (c != null) {
+            c.quit();
+            c.close();
+        }
         connected = false;
         setInGame(false);
         connectBtn.setEnabled(true);
@@ -366,95 +357,168 @@ public class ClientGUI extends JFrame {
         log("Disconnected.");
     }
 
-    private void listenLoop() {
+    /** Sends a line if connected; safe from any thread. */
+    private void sendLine(String line) {
+        Connection c = conn;
+        if (c != null) c.send(line);
+    }
+
+    // ----------------- EDT dispatch -----------------
+    /** Queues work for the EDT; everything queued before the next tick runs in one batch. */
+    private void post(Runnable r) {
+        inbox.add(r);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        // already inside a drain: the end of the batch flushes everything
+        if (draining && SwingUtilities.isEventDispatchThread()) return;
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drainInbox);
+        }
+    }
+
+    /** Handles every event received since the last tick, then refreshes log and chat once. */
+    private void drainInbox() {
+        drainScheduled.set(false);
+        boolean outer = !draining; // a modal dialog can re-enter through a nested event loop
+        draining = true;
         try {
-            String line;
-            while ((line = in.readLine()) != null) {
-                final String l = line;
-                SwingUtilities.invokeLater(() -> handleServerLine(l));
+            Runnable r;
+            while ((r = inbox.poll()) != null) {
+                r.run();
             }
-        } catch (IOException e) {
-            log("Connection lost: " + e.getMessage());
-            SwingUtilities.invokeLater(() -> {
-                statusLabel.setText("Disconnected");
-                connectBtn.setEnabled(true);
-                disconnectBtn.setEnabled(false);
-                setInGame(false);
-            });
         } finally {
-            try { if (socket != null && !socket.isClosed()) socket.close(); } catch (IOException ignored) {}
-            connected = false;
+            if (outer) draining = false;
+        }
+        flushLog();
+        if (chatScrollPending) {
+            chatScrollPending = false;
+            int size = chatModel.getSize();
+            if (size > 0) chatList.ensureIndexIsVisible(size - 1);
         }
     }
 
     // ----------------- Protocol handling -----------------
-    private void handleServerLine(String line) {
-        log("[SERVER] " + line);
-        // Messages are KEY|... ; split into parts
-        String[] parts = line.split("\\|", 4);
-        String key = parts[0];
-
-        switch (key) {
-            case "MSG":
-                if (parts.length >= 2) {
-                    appendChat("SERVER: " + parts[1]);
-                }
-                // if server asks mode with ASKMODE token separately, some server sends "ASKMODE" line
-                break;
-            case "ASKMODE":
-                // server requests mode selection; send our chosen mode
-                String sel = modeCombo.getSelectedIndex() == 0 ? "1" : "2";
-                out.println(sel);
+    /**
+     * Server events from the SDK. Callbacks run on the connection's event loop
+     * and only post UI work to the EDT batch queue.
+     */
+    private final class ServerEvents implements GameListener {
+        private final String pseudo;
+
+        ServerEvents(String pseudo) {
+            this.pseudo = pseudo;
+        }
+
+        @Override
+        public void onConnected(Connection c) {
+            conn = c;
+            connected = true;
+            // send pseudo as first line (server expects)
+            c.send(pseudo);
+            log("Sent pseudo: " + pseudo);
+            post(() -> {
+                connectBtn.setEnabled(false);
+                disconnectBtn.setEnabled(true);
+            });
+        }
+
+        @Override
+        public void onLine(Connection c, String line) {
+            log("[SERVER] " + line);
+        }
+
+        @Override
+        public void onMessage(Connection c, String text) {
+            post(() -> appendChat("SERVER: " + text));
+        }
+
+        @Override
+        public void onAskMode(Connection c) {
+            // server requests mode selection; send our chosen mode
+            post(() -> {
+                int sel = modeCombo.getSelectedIndex() + 1;
+                c.chooseMode(sel);
                 log("Sent MODE: " + sel);
                 waitingModeAsk.set(false);
-                break;
-            case "TURN":
-                if (parts.length >= 2) {
-                    boolean you = parts[1].equalsIgnoreCase("YOU");
-                    setMyTurn(you);
-                }
-                break;
-            case "RESULT":
-                // RESULT|HIT|x|y  OR RESULT|MISS|x|y OR RESULT|SUNK|x|y
-                if (parts.length >= 4) {
-                    String res = parts[1];
-                    int x = safeParse(parts[2]), y = safeParse(parts[3]);
-                    handleShotResult(res, x, y);
-                }
-                break;
-            case "OPPONENT_FIRE":
-                if (parts.length >= 4) {
-                    String res = parts[1];
-                    int x = safeParse(parts[2]), y = safeParse(parts[3]);
-                    handleOpponentFire(res, x, y);
-                }
-                break;
-            case "END":
-                if (parts.length >= 2) {
-                    String res = parts[1];
-                    handleGameEnd(res);
-                }
-                break;
-            case "ERROR":
-                if (parts.length >= 2) {
-                    JOptionPane.showMessageDialog(this, "Server error: " + parts[1], "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
-                break;
-            case "OPPONENT_LEFT":
+            });
+        }
+
+        @Override
+        public void onStart(Connection c) {
+            post(() -> {
+                // fetch our fleet so the left grid shows it
+                setInGame(true);
+                c.requestState();
+            });
+        }
+
+        @Override
+        public void onTurn(Connection c, boolean yourTurn) {
+            post(() -> setMyTurn(yourTurn));
+        }
+
+        @Override
+        public void onResult(Connection c, ShotResult result, int x, int y) {
+            post(() -> handleShotResult(result, x, y));
+        }
+
+        @Override
+        public void onOpponentFire(Connection c, ShotResult result, int x, int y) {
+            post(() -> handleOpponentFire(result, x, y));
+        }
+
+        @Override
+        public void onState(Connection c, StateSnapshot state) {
+            post(() -> showState(state));
+        }
+
+        @Override
+        public void onEnd(Connection c, String outcome) {
+            post(() -> handleGameEnd(outcome));
+        }
+
+        @Override
+        public void onError(Connection c, String message) {
+            post(() -> JOptionPane.showMessageDialog(ClientGUI.this, "Server error: " + message, "Erreur", JOptionPane.ERROR_MESSAGE));
+        }
+
+        @Override
+        public void onOpponentLeft(Connection c, String message) {
+            post(() -> {
                 appendChat("[SYSTEM] Adversaire déconnecté.");
                 setInGame(false);
-                break;
-            case "CHAT":
-                // CHAT|from|text
-                if (parts.length >= 3) {
-                    String from = parts[1];
-                    String text = parts.length >= 4 ? parts[2] : "";
-                    appendChat(from + ": " + text);
-                }
-                break;
-            default:
-                // unknown raw message
-                appendChat("RAW: " + line);
+            });
+        }
+
+        @Override
+        public void onChat(Connection c, String from, String text) {
+            post(() -> appendChat(from + ": " + text));
+        }
+
+        @Override
+        public void onLeaderboard(Connection c, String board, String rows) {
+            // LEADERBOARD|GLOBAL|1:alice:1216:3:1;2:bob:...
+            post(() -> showLeaderboard(board, rows));
+        }
+
+        @Override
+        public void onUnknown(Connection c, String line) {
+            post(() -> appendChat("RAW: " + line));
+        }
+
+        @Override
+        public void onDisconnected(Connection c, Throwable cause) {
+            if (conn == c) conn = null;
+            connected = false;
+            if (cause != null) log("Connection lost: " + cause.getMessage());
+            post(() -> {
+                statusLabel.setText("Disconnected");
+                connectBtn.setEnabled(true);
+                disconnectBtn.setEnabled(false);
+                setInGame(false);
+            });
         }
     }
 
@@ -484,72 +548,87 @@ public class ClientGUI extends JFrame {
     }
 
     private void resetGrids() {
-        for (int i = 0; i < GRID_SIZE; i++)
-            for (int j = 0; j < GRID_SIZE; j++) {
-                myGridButtons[i][j].setBackground(Color.LIGHT_GRAY);
-                myGridButtons[i][j].setText("");
-                enemyGridButtons[i][j].setBackground(Color.WHITE);
-                enemyGridButtons[i][j].setText("");
-                enemyGridButtons[i][j].setEnabled(false);
-            }
+        myBoard.clear();
+        enemyBoard.clear();
+        enemyBoard.setInteractive(false);
     }
 
     private void revealMyShips() {
-        // request not available on server side — we simulate local random placement display
-        // for usability we reveal random positions similar to server initial placement result
-        // NOTE: This is purely a visual helper — server actually controls game state
-        for (int i = 0; i < GRID_SIZE; i++)
-            for (int j = 0; j < GRID_SIZE; j++) {
-                if (Math.random() < 0.12) { // random small hint
-                    myGridButtons[i][j].setBackground(COLOR_MYSHIP);
+        // the server owns the boards: ask it for both, painted by showState
+        Connection c = conn;
+        if (c == null || !inGame) {
+            appendChat("[SYSTEM] Pas de partie en cours.");
+            return;
+        }
+        c.requestState();
+    }
+
+    /** Repaints both grids from a server snapshot (game start, resync, "Afficher mes bateaux"). */
+    private void showState(StateSnapshot state) {
+        if (state.size() != GRID_SIZE) return;
+        for (int x = 0; x < GRID_SIZE; x++)
+            for (int y = 0; y < GRID_SIZE; y++) {
+                byte mine;
+                switch (state.mine(x, y)) {
+                    case StateSnapshot.SHIP: mine = BoardPanel.SHIP; break;
+                    case StateSnapshot.MISS: mine = BoardPanel.MISS; break;
+                    // the snapshot does not tell sunk from hit on our side: keep what we drew
+                    case StateSnapshot.HIT: mine = myBoard.getCell(x, y) == BoardPanel.SUNK ? BoardPanel.SUNK : BoardPanel.HIT; break;
+                    default: mine = BoardPanel.EMPTY;
                 }
+                myBoard.setCell(x, y, mine);
+                byte theirs;
+                switch (state.theirs(x, y)) {
+                    case StateSnapshot.SUNK: theirs = BoardPanel.SUNK; break;
+                    case StateSnapshot.MISS: theirs = BoardPanel.MISS; break;
+                    case StateSnapshot.HIT: theirs = BoardPanel.HIT; break;
+                    default: theirs = BoardPanel.EMPTY;
+                }
+                enemyBoard.setCell(x, y, theirs);
             }
+        // the snapshot also settles whose turn it is (e.g. after a missed TURN)
+        if (!state.over() && state.myTurn() != myTurn) setMyTurn(state.myTurn());
     }
 
     private void setEnemyGridEnabled(boolean en) {
-        for (int i=0;i<GRID_SIZE;i++) for (int j=0;j<GRID_SIZE;j++) enemyGridButtons[i][j].setEnabled(en);
+        enemyBoard.setInteractive(en);
     }
 
-    private void handleShotResult(String res, int x, int y) {
+    private void handleShotResult(ShotResult res, int x, int y) {
         setInGame(true); // when we get results, we are in a game
-        switch (res.toUpperCase()) {
-            case "MISS":
-                flashButton(enemyGridButtons[x][y], COLOR_MISS);
-                enemyGridButtons[x][y].setText("o");
+        switch (res) {
+            case MISS:
+                markCell(enemyBoard, x, y, BoardPanel.MISS, COLOR_MISS);
                 break;
-            case "HIT":
-                flashButton(enemyGridButtons[x][y], COLOR_HIT);
-                enemyGridButtons[x][y].setText("X");
+            case HIT:
+                markCell(enemyBoard, x, y, BoardPanel.HIT, COLOR_HIT);
                 break;
-            case "SUNK":
-                flashButton(enemyGridButtons[x][y], COLOR_SUNK);
-                enemyGridButtons[x][y].setText("S");
+            case SUNK:
+                markCell(enemyBoard, x, y, BoardPanel.SUNK, COLOR_SUNK);
                 // reduce ships count heuristic: show sunk -> -1
                 shipsLeft.getAndUpdate(prev -> Math.max(0, prev-1));
                 updateShipsLabel();
                 break;
-            case "ALREADY":
+            case ALREADY:
                 JOptionPane.showMessageDialog(this, "Case déjà jouée", "Info", JOptionPane.INFORMATION_MESSAGE);
+                setEnemyGridEnabled(myTurn); // the server keeps the turn: let the player pick again
                 break;
             default:
                 appendChat("[RESULT] " + res + " (" + x + "," + y + ")");
         }
     }
 
-    private void handleOpponentFire(String res, int x, int y) {
+    private void handleOpponentFire(ShotResult res, int x, int y) {
         setInGame(true);
-        switch (res.toUpperCase()) {
-            case "MISS":
-                flashButton(myGridButtons[x][y], COLOR_MISS);
-                myGridButtons[x][y].setText("o");
+        switch (res) {
+            case MISS:
+                markCell(myBoard, x, y, BoardPanel.MISS, COLOR_MISS);
                 break;
-            case "HIT":
-                flashButton(myGridButtons[x][y], COLOR_HIT);
-                myGridButtons[x][y].setText("X");
+            case HIT:
+                markCell(myBoard, x, y, BoardPanel.HIT, COLOR_HIT);
                 break;
-            case "SUNK":
-                flashButton(myGridButtons[x][y], COLOR_SUNK);
-                myGridButtons[x][y].setText("S");
+            case SUNK:
+                markCell(myBoard, x, y, BoardPanel.SUNK, COLOR_SUNK);
                 // client lost a ship -> decrement
                 shipsLeft.getAndUpdate(prev -> Math.max(0, prev-1));
                 updateShipsLabel();
@@ -585,20 +664,43 @@ public class ClientGUI extends JFrame {
             return;
         }
         // protect against double-click visually
-        Color bg = enemyGridButtons[x][y].getBackground();
-        if (bg.equals(COLOR_HIT) || bg.equals(COLOR_MISS) || bg.equals(COLOR_SUNK) || !enemyGridButtons[x][y].isEnabled()) {
+        if (enemyBoard.getCell(x, y) != BoardPanel.EMPTY || !enemyBoard.isInteractive()) {
             appendChat("[SYSTEM] Case déjà ciblée.");
             return;
         }
         // send shot
-        if (out != null) {
-            out.println("SHOT|" + x + "|" + y);
+        Connection c = conn;
+        if (c != null) {
+            c.shoot(x, y);
             appendChat("[YOU] Tir en (" + x + "," + y + ")");
             // disable further clicks while awaiting result
             setEnemyGridEnabled(false);
         }
     }
 
+    private void requestLeaderboard() {
+        Connection c = conn;
+        if (!connected || c == null) {
+            appendChat("[SYSTEM] Non connecté.");
+            return;
+        }
+        c.requestLeaderboard(false);
+    }
+
+    private void showLeaderboard(String which, String body) {
+        appendChat("[CLASSEMENT " + which + "]");
+        if (body.isEmpty()) {
+            appendChat("  (aucune partie)");
+            return;
+        }
+        for (String row : body.split(";")) {
+            String[] f = row.split(":");
+            if (f.length >= 5) {
+                appendChat("  " + f[0] + ". " + f[1] + " - " + f[2] + " (" + f[3] + "V/" + f[4] + "D)");
+            }
+        }
+    }
+
     private void sendChatMessage() {
         if (!connected) {
             appendChat("[SYSTEM] Non connecté.");
@@ -607,53 +709,94 @@ public class ClientGUI extends JFrame {
         String text = chatInput.getText().trim();
         if (text.isEmpty()) return;
         // we send "CHAT|text" for server
-        out.println("CHAT|" + text);
+        sendLine("CHAT|" + text);
         appendChat("[YOU] " + text);
         chatInput.setText("");
     }
 
     // --------------- visuals & utils ---------------
-    private void flashButton(JButton b, Color color) {
-        Color before = b.getBackground();
-        b.setBackground(color);
-        Timer t = new Timer(350, e -> b.setBackground(before));
-        t.setRepeats(false);
-        t.start();
+    private void markCell(BoardPanel board, int x, int y, byte state, Color flash) {
+        if (x < 0 || y < 0 || x >= GRID_SIZE || y >= GRID_SIZE) return;
+        board.setCell(x, y, state);
+        board.flash(x, y, flash);
     }
 
     private void appendChat(String s) {
-        chatModel.addElement(s);
-        // auto scroll
-        SwingUtilities.invokeLater(() -> {
-            int size = chatModel.size();
-            if (size > 0) chatList.ensureIndexIsVisible(size - 1);
-        });
+        chatModel.add(s);
+        // auto scroll once per batch
+        chatScrollPending = true;
         log(s);
     }
 
+    /** Thread-safe: the line shows up in logArea on the next EDT drain. */
     private void log(String s) {
-        logArea.append(s + "\n");
-        logArea.setCaretPosition(logArea.getDocument().getLength());
+        synchronized (logLines) {
+            String evicted = logLines.add(s);
+            if (evicted != null) logEvictedChars += evicted.length() + 1;
+            logPending.append(s).append('\n');
+        }
+        scheduleDrain();
     }
 
-    private int safeParse(String s) {
-        try { return Integer.parseInt(s.trim()); }
-        catch (Exception ex) { return -1; }
+    private void flushLog() {
+        javax.swing.text.Document doc = logArea.getDocument();
+        String text;
+        int evicted;
+        boolean rebuild;
+        synchronized (logLines) {
+            if (logPending.length() == 0) return;
+            evicted = logEvictedChars;
+            // some pending lines were evicted too: rebuild from the ring
+            rebuild = evicted > doc.getLength();
+            if (rebuild) {
+                StringBuilder all = new StringBuilder();
+                for (int i = 0; i < logLines.size(); i++) all.append(logLines.get(i)).append('\n');
+                text = all.toString();
+            } else {
+                text = logPending.toString();
+            }
+            logPending.setLength(0);
+            logEvictedChars = 0;
+        }
+        try {
+            if (rebuild) {
+                logArea.setText(text);
+            } else {
+                doc.remove(0, evicted);
+                logArea.append(text);
+            }
+        } catch (javax.swing.text.BadLocationException ex) {
+            logArea.setText(text);
+        }
+        logArea.setCaretPosition(doc.getLength());
+    }
+
+    private void clearLog() {
+        synchronized (logLines) {
+            logLines.clear();
+            logPending.setLength(0);
+            logEvictedChars = 0;
+        }
+        logArea.setText("");
     }
 
     private void showProtocolHelp() {
         String help = "Protocole pris en charge (exemples) :\n"
                 + "  ASKMODE\n"
                 + "  MSG|Bienvenue\n"
-                + "  TURN|YOU\n"
-                + "  RESULT|HIT|x|y\n"
-                + "  OPPONENT_FIRE|MISS|x|y\n"
-                + "  END|WIN\n"
+                + "  START\n"
+                + "  TURN|YOU|seq\n"
+                + "  RESULT|HIT|x|y|seq\n"
+                + "  OPPONENT_FIRE|MISS|x|y|seq\n"
+                + "  STATE|seq|taille|mes cases|ses cases|tour|finie\n"
+                + "  END|WIN|seq\n"
                 + "Client -> Server (GUI envoie) :\n"
                 + "  pseudo (première ligne après connexion)\n"
-                + "  1 (pour JvJ) ou 2 (pour IA) en réponse à ASKMODE\n"
+                + "  1 (JvJ), 2 (IA), 3 (Tournoi) ou 4 (IA difficile) en réponse à ASKMODE\n"
                 + "  SHOT|x|y pour tirer\n"
                 + "  CHAT|message pour chat\n"
+                + "  LEADERBOARD ou LEADERBOARD|DAY pour le classement\n"
+                + "  STATE pour recevoir les deux grilles\n"
                 + "  QUIT pour quitter\n";
         JOptionPane.showMessageDialog(this, help, "Protocole", JOptionPane.INFORMATION_MESSAGE);
     }
@@ -675,7 +818,7 @@ public class ClientGUI extends JFrame {
                         appendChat("[SYSTEM] Temps écoulé !");
                         setMyTurn(false);
                     });
-                    if (out != null) out.println("TIMEOUT");
+                    sendLine("TIMEOUT");
                     stopTurnTimer();
                 }
             }
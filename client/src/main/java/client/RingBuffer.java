@@ -0,0 +1,50 @@
+package client;
+
+/**
+ * RingBuffer - fixed-capacity FIFO; adding to a full buffer drops the oldest item.
+ * Not thread-safe: callers synchronize or stay on one thread.
+ */
+final class RingBuffer<T> {
+
+    private final Object[] items;
+    private int head = 0; // index of the oldest item
+    private int size = 0;
+
+    RingBuffer(int capacity) {
+        items = new Object[capacity];
+    }
+
+    /** Adds item and returns the item it evicted, or null if there was room. */
+    T add(T item) {
+        T evicted = null;
+        int tail = (head + size) % items.length;
+        if (size == items.length) {
+            evicted = get(0);
+            head = (head + 1) % items.length;
+        } else {
+            size++;
+        }
+        items[tail] = item;
+        return evicted;
+    }
+
+    /** i-th item, 0 being the oldest. */
+    @SuppressWarnings("unchecked")
+    T get(int i) {
+        return (T) items[(head + i) % items.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    void clear() {
+        java.util.Arrays.fill(items, null);
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,42 @@
+package client;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * RingListModel - JList model over a RingBuffer: keeps the last N rows only.
+ * EDT only, like any Swing model.
+ */
+final class RingListModel<T> extends AbstractListModel<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RingBuffer<T> rows;
+
+    RingListModel(int capacity) {
+        rows = new RingBuffer<>(capacity);
+    }
+
+    void add(T row) {
+        boolean full = rows.size() == rows.capacity();
+        rows.add(row);
+        if (full) fireIntervalRemoved(this, 0, 0);
+        fireIntervalAdded(this, rows.size() - 1, rows.size() - 1);
+    }
+
+    void clear() {
+        int n = rows.size();
+        if (n == 0) return;
+        rows.clear();
+        fireIntervalRemoved(this, 0, n - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return rows.get(index);
+    }
+}
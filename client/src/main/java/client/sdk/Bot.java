@@ -0,0 +1,133 @@
+package client.sdk;
+
+import protocol.ShotResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bot - plays one game on its own with a {@link ShotPolicy}.
+ *
+ * Also a load/benchmark runner:
+ *   java -cp out client.sdk.Bot [host] [port] [bots] [gamesPerBot] [mode]
+ * starts `bots` concurrent bots that each play `gamesPerBot` games in a row
+ * (mode 1 = bots against each other, 2 = against the server AI, 4 = against
+ * the hard server AI) and prints the outcome counts. All bots share one event-loop thread.
+ */
+public final class Bot implements GameListener {
+
+    private final String pseudo;
+    private final int mode;
+    private final ShotPolicy policy;
+    private final TargetBoard board;
+    private final CompletableFuture<String> outcome = new CompletableFuture<>();
+    private int shots = 0;
+
+    public Bot(String pseudo, int mode, ShotPolicy policy, int boardSize) {
+        this.pseudo = pseudo;
+        this.mode = mode;
+        this.policy = policy;
+        this.board = new TargetBoard(boardSize);
+    }
+
+    /** Connects and plays; completes with WIN, LOSE, ABANDON or DISCONNECTED. */
+    public CompletableFuture<String> play(String host, int port) {
+        Connection.open(host, port, this).whenComplete((c, e) -> {
+            if (e != null) outcome.complete("DISCONNECTED");
+        });
+        return outcome;
+    }
+
+    public int shots() {
+        return shots;
+    }
+
+    @Override
+    public void onConnected(Connection conn) {
+        conn.send(pseudo);
+    }
+
+    @Override
+    public void onAskMode(Connection conn) {
+        conn.chooseMode(mode);
+    }
+
+    @Override
+    public void onTurn(Connection conn, boolean yourTurn) {
+        if (yourTurn) fire(conn);
+    }
+
+    @Override
+    public void onResult(Connection conn, ShotResult result, int x, int y) {
+        if (result == ShotResult.ALREADY) {
+            // our view was out of date: remember the cell and fire again, the turn is still ours
+            board.mark(x, y, ShotResult.MISS);
+            fire(conn);
+            return;
+        }
+        board.mark(x, y, result);
+    }
+
+    @Override
+    public void onEnd(Connection conn, String result) {
+        outcome.complete(result);
+        conn.close();
+    }
+
+    @Override
+    public void onOpponentLeft(Connection conn, String message) {
+        outcome.complete("ABANDON");
+        conn.close();
+    }
+
+    @Override
+    public void onDisconnected(Connection conn, Throwable cause) {
+        outcome.complete("DISCONNECTED");
+    }
+
+    private void fire(Connection conn) {
+        if (board.unknownCount() == 0) return;
+        int cell = policy.nextShot(board);
+        shots++;
+        conn.shoot(cell / board.size(), cell % board.size());
+    }
+
+    // ----------------- runner -----------------
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 1234;
+        int bots = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int mode = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        int size = Integer.getInteger("bn.size", 4);
+
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        LongAdder totalShots = new LongAdder();
+        AtomicInteger seeds = new AtomicInteger();
+        long start = System.nanoTime();
+
+        CompletableFuture<?>[] runs = new CompletableFuture<?>[bots];
+        for (int b = 0; b < bots; b++) {
+            String name = "bot" + b;
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int g = 0; g < games; g++) {
+                chain = chain.thenCompose(v -> {
+                    Bot bot = new Bot(name, mode, ShotPolicy.huntTarget(seeds.incrementAndGet()), size);
+                    return bot.play(host, port).thenAccept(res -> {
+                        outcomes.computeIfAbsent(res, k -> new LongAdder()).increment();
+                        totalShots.add(bot.shots());
+                    });
+                });
+            }
+            runs[b] = chain;
+        }
+        CompletableFuture.allOf(runs).join();
+
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games in %.2fs, %d shots, outcomes %s%n",
+                bots * games, secs, totalShots.sum(), outcomes);
+    }
+}
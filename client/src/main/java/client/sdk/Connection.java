@@ -0,0 +1,383 @@
+package client.sdk;
+
+import protocol.ShotResult;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Connection - asynchronous, UI-free connection to the game server.
+ *
+ * Non-blocking socket driven by an {@link EventLoop}. Incoming lines are
+ * parsed and dispatched to a {@link GameListener}; the send methods can be
+ * called from any thread and never block on the network.
+ *
+ * Shots that change a board carry a sequence number, restarting at START.
+ * The connection delivers them to the listener exactly once and in order:
+ * duplicates are dropped, and on a gap it asks the server for the missing
+ * shots (STATE|lastSeq) instead of delivering out of order. TURN and END
+ * carry the number of the last shot before them and wait for it the same
+ * way.
+ *
+ * Usage:
+ *   Connection.open("localhost", 1234, listener).thenAccept(c -> c.send("pseudo"));
+ */
+public final class Connection {
+
+    // the server encodes with its default charset, like the original clients
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final EventLoop loop;
+    private final GameListener listener;
+    private final SocketChannel channel;
+    private final CompletableFuture<Connection> connected = new CompletableFuture<>();
+
+    // loop thread only
+    private SelectionKey key;
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private boolean closed = false;
+    // last shot delivered in the current game, and where we last asked to resync from
+    private volatile int lastSeq = 0;
+    private int resyncFrom = -1;
+    // TURN / END lines received ahead of the shots they follow, in order
+    private final ArrayDeque<String> deferred = new ArrayDeque<>();
+    // seq of the last TURN / END delivered; an older one is stale and dropped
+    private int lastTurnSeq = 0;
+
+    private Connection(EventLoop loop, SocketChannel channel, GameListener listener) {
+        this.loop = loop;
+        this.channel = channel;
+        this.listener = listener;
+    }
+
+    /** Connects on the shared event loop. */
+    public static CompletableFuture<Connection> open(String host, int port, GameListener listener) {
+        return open(host, port, listener, EventLoop.shared());
+    }
+
+    public static CompletableFuture<Connection> open(String host, int port, GameListener listener, EventLoop loop) {
+        SocketChannel ch;
+        try {
+            ch = SocketChannel.open();
+            ch.configureBlocking(false);
+            ch.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Connection conn = new Connection(loop, ch, listener);
+        InetSocketAddress addr = new InetSocketAddress(host, port);
+        loop.execute(() -> conn.start(addr));
+        return conn.connected;
+    }
+
+    // ----------------- sending (any thread) -----------------
+
+    /** Sends one protocol line; the newline is added here. */
+    public void send(String line) {
+        ByteBuffer buf = CHARSET.encode(line + '\n');
+        loop.execute(() -> enqueue(buf));
+    }
+
+    /** Answer to ASKMODE: 1 = JvJ, 2 = IA, 3 = tournament, 4 = hard IA. */
+    public void chooseMode(int mode) {
+        send(String.valueOf(mode));
+    }
+
+    public void shoot(int x, int y) {
+        send("SHOT|" + x + "|" + y);
+    }
+
+    public void chat(String text) {
+        send("CHAT|" + text);
+    }
+
+    public void requestLeaderboard(boolean daily) {
+        send(daily ? "LEADERBOARD|DAY" : "LEADERBOARD");
+    }
+
+    /** Asks for a full snapshot of both boards; answered through onState. */
+    public void requestState() {
+        send("STATE");
+    }
+
+    /** Sequence number of the last shot delivered in the current game (0 before the first). */
+    public int lastSeq() {
+        return lastSeq;
+    }
+
+    public void timeout() {
+        send("TIMEOUT");
+    }
+
+    public void quit() {
+        send("QUIT");
+    }
+
+    /** Closes the socket; onDisconnected is called once with a null cause. */
+    public void close() {
+        loop.execute(() -> shutdown(null));
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    // ----------------- event loop side -----------------
+
+    private void start(InetSocketAddress addr) {
+        try {
+            key = loop.register(channel, SelectionKey.OP_CONNECT, this);
+            if (channel.connect(addr)) onConnect();
+        } catch (IOException e) {
+            connected.completeExceptionally(e);
+            shutdown(e);
+        }
+    }
+
+    void handle(SelectionKey k) {
+        try {
+            if (!k.isValid()) return;
+            if (k.isConnectable()) {
+                if (channel.finishConnect()) onConnect();
+                return;
+            }
+            if (k.isReadable()) read();
+            if (k.isValid() && k.isWritable()) flush();
+        } catch (IOException e) {
+            if (!connected.isDone()) connected.completeExceptionally(e);
+            shutdown(e);
+        }
+    }
+
+    private void onConnect() throws IOException {
+        key.interestOps(SelectionKey.OP_READ | (outbound.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+        listener.onConnected(this);
+        connected.complete(this);
+    }
+
+    private void enqueue(ByteBuffer buf) {
+        if (closed) return;
+        outbound.add(buf);
+        if (key != null && key.isValid() && channel.isConnected()) {
+            try {
+                flush();
+            } catch (IOException e) {
+                shutdown(e);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        while (!outbound.isEmpty()) {
+            ByteBuffer head = outbound.peek();
+            channel.write(head);
+            if (head.hasRemaining()) break; // socket buffer full: wait for OP_WRITE
+            outbound.poll();
+        }
+        int ops = SelectionKey.OP_READ | (outbound.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+        if (key.interestOps() != ops) key.interestOps(ops);
+    }
+
+    private void read() throws IOException {
+        int n = channel.read(in);
+        if (n < 0) {
+            shutdown(null);
+            return;
+        }
+        in.flip();
+        int start = in.position();
+        for (int i = start; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+                dispatch(decode(start, end));
+                if (closed) return;
+                start = i + 1;
+            }
+        }
+        in.position(start);
+        in.compact();
+        if (!in.hasRemaining()) {
+            // a single line longer than the buffer
+            ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+    }
+
+    private String decode(int from, int to) {
+        ByteBuffer slice = in.duplicate();
+        slice.position(from).limit(to);
+        return CHARSET.decode(slice).toString();
+    }
+
+    private void shutdown(Throwable cause) {
+        if (closed) return;
+        closed = true;
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+        listener.onDisconnected(this, cause);
+    }
+
+    // ----------------- protocol -----------------
+
+    private void dispatch(String line) {
+        listener.onLine(this, line);
+
+        int bar = line.indexOf('|');
+        String head = bar < 0 ? line : line.substring(0, bar);
+        String rest = bar < 0 ? "" : line.substring(bar + 1);
+
+        switch (head) {
+            case "MSG":
+                listener.onMessage(this, rest);
+                break;
+            case "ASKMODE":
+                listener.onAskMode(this);
+                break;
+            case "START":
+                resetSeq();
+                listener.onStart(this);
+                break;
+            case "TURN":
+            case "END":
+                dispatchAfterShots(head, rest, line);
+                break;
+            case "RESULT":
+            case "OPPONENT_FIRE":
+                dispatchShot(head, rest, line);
+                break;
+            case "ERROR":
+                listener.onError(this, rest);
+                break;
+            case "OPPONENT_LEFT":
+                resetSeq();
+                listener.onOpponentLeft(this, rest);
+                break;
+            case "STATE": {
+                StateSnapshot state = StateSnapshot.parse(rest);
+                if (state == null) {
+                    listener.onUnknown(this, line);
+                    break;
+                }
+                lastSeq = state.seq();
+                resyncFrom = -1;
+                listener.onState(this, state);
+                releaseDeferred();
+                break;
+            }
+            case "CHAT": {
+                int sep = rest.indexOf('|');
+                if (sep < 0) listener.onChat(this, "", rest);
+                else listener.onChat(this, rest.substring(0, sep), rest.substring(sep + 1));
+                break;
+            }
+            case "LEADERBOARD": {
+                int sep = rest.indexOf('|');
+                if (sep < 0) listener.onLeaderboard(this, rest, "");
+                else listener.onLeaderboard(this, rest.substring(0, sep), rest.substring(sep + 1));
+                break;
+            }
+            default:
+                listener.onUnknown(this, line);
+        }
+    }
+
+    /** res|x|y or res|x|y|seq */
+    private void dispatchShot(String head, String rest, String line) {
+        int a = rest.indexOf('|');
+        int b = a < 0 ? -1 : rest.indexOf('|', a + 1);
+        ShotResult res = a < 0 ? null : ShotResult.parse(rest.substring(0, a));
+        if (res == null || b < 0) {
+            listener.onUnknown(this, line);
+            return;
+        }
+        int c = rest.indexOf('|', b + 1);
+        int x = parseInt(rest, a + 1, b);
+        int y = parseInt(rest, b + 1, c < 0 ? rest.length() : c);
+        if (c >= 0 && !inSequence(parseInt(rest, c + 1, rest.length()))) return;
+        if (head.equals("RESULT")) listener.onResult(this, res, x, y);
+        else listener.onOpponentFire(this, res, x, y);
+        releaseDeferred();
+    }
+
+    /**
+     * who|seq or outcome|seq (seq optional); held back until shot seq has
+     * been delivered, dropped if older than the last TURN / END delivered.
+     */
+    private void dispatchAfterShots(String head, String rest, String line) {
+        int sep = rest.indexOf('|');
+        if (sep >= 0) {
+            int seq = parseInt(rest, sep + 1, rest.length());
+            if (seq > lastSeq) {
+                deferred.add(line);
+                resync();
+                return;
+            }
+            if (seq < lastTurnSeq) return;
+            lastTurnSeq = seq;
+        }
+        String value = sep < 0 ? rest : rest.substring(0, sep);
+        if (head.equals("TURN")) {
+            listener.onTurn(this, value.equalsIgnoreCase("YOU"));
+        } else {
+            resetSeq();
+            listener.onEnd(this, value);
+        }
+    }
+
+    private void releaseDeferred() {
+        while (!deferred.isEmpty()) {
+            String line = deferred.peek();
+            int bar = line.indexOf('|');
+            String rest = line.substring(bar + 1);
+            int sep = rest.indexOf('|');
+            if (parseInt(rest, sep + 1, rest.length()) > lastSeq) return;
+            deferred.poll();
+            dispatchAfterShots(line.substring(0, bar), rest, line);
+        }
+    }
+
+    /** True if seq is the next shot; drops duplicates and asks for the shots missing before it. */
+    private boolean inSequence(int seq) {
+        if (seq <= lastSeq) return false;
+        if (seq > lastSeq + 1) {
+            resync();
+            return false;
+        }
+        lastSeq = seq;
+        return true;
+    }
+
+    /** Asks once for the shots after lastSeq; answered with RESULT / OPPONENT_FIRE lines. */
+    private void resync() {
+        if (resyncFrom != lastSeq) {
+            resyncFrom = lastSeq;
+            send("STATE|" + lastSeq);
+        }
+    }
+
+    private void resetSeq() {
+        lastSeq = 0;
+        lastTurnSeq = 0;
+        resyncFrom = -1;
+        deferred.clear();
+    }
+
+    private static int parseInt(String s, int from, int to) {
+        try {
+            return Integer.parseInt(s, from, to, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
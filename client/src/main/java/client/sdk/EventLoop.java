@@ -0,0 +1,92 @@
+package client.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * EventLoop - one selector thread serving any number of connections.
+ *
+ * A bot farm running thousands of games needs one thread in total, not
+ * one per socket. Callbacks of every connection on a loop run on its thread.
+ */
+public final class EventLoop implements Closeable {
+
+    private static EventLoop shared;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean open = true;
+
+    public EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Process-wide default loop, started on first use. */
+    public static synchronized EventLoop shared() {
+        if (shared == null || !shared.open) {
+            try {
+                shared = new EventLoop("BattleshipEventLoop");
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open selector", e);
+            }
+        }
+        return shared;
+    }
+
+    /** Runs task on the loop thread (immediately if already on it). */
+    void execute(Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+            return;
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    SelectionKey register(java.nio.channels.SelectableChannel ch, int ops, Connection conn)
+            throws ClosedChannelException {
+        return ch.register(selector, ops, conn);
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (open) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                break;
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                ((Connection) key.attachment()).handle(key);
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((Connection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+}
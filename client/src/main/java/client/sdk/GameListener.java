@@ -0,0 +1,61 @@
+package client.sdk;
+
+import protocol.ShotResult;
+
+/**
+ * GameListener - typed callbacks for the server protocol.
+ *
+ * All methods are called on the connection's event-loop thread, in the order
+ * the lines arrive. They must not block: hand long work to another thread.
+ * Every method has an empty default so a bot only overrides what it needs.
+ */
+public interface GameListener {
+
+    /** The TCP connection is established; the first line to send is the pseudo. */
+    default void onConnected(Connection conn) {}
+
+    /** Every raw line, before it is dispatched to the typed callbacks below. */
+    default void onLine(Connection conn, String line) {}
+
+    /** MSG|text */
+    default void onMessage(Connection conn, String text) {}
+
+    /** ASKMODE: answer with {@link Connection#chooseMode(int)}. */
+    default void onAskMode(Connection conn) {}
+
+    /** START: a new game begins; shot sequence numbers restart from 1. */
+    default void onStart(Connection conn) {}
+
+    /** TURN|YOU|seq (yourTurn = true) or TURN|OPP|seq, delivered after every shot up to seq. */
+    default void onTurn(Connection conn, boolean yourTurn) {}
+
+    /** RESULT|res|x|y[|seq] : outcome of our own shot, delivered once and in sequence order. */
+    default void onResult(Connection conn, ShotResult result, int x, int y) {}
+
+    /** OPPONENT_FIRE|res|x|y[|seq] : the opponent fired at our board. */
+    default void onOpponentFire(Connection conn, ShotResult result, int x, int y) {}
+
+    /** STATE|... : answer to {@link Connection#requestState()}; shots up to state.seq() are included. */
+    default void onState(Connection conn, StateSnapshot state) {}
+
+    /** END|WIN|seq, END|LOSE|seq or END|ABANDON|seq; outcome is the second token. */
+    default void onEnd(Connection conn, String outcome) {}
+
+    /** ERROR|message */
+    default void onError(Connection conn, String message) {}
+
+    /** OPPONENT_LEFT|message */
+    default void onOpponentLeft(Connection conn, String message) {}
+
+    /** CHAT|from|text */
+    default void onChat(Connection conn, String from, String text) {}
+
+    /** LEADERBOARD|GLOBAL|rows or LEADERBOARD|DAY|rows */
+    default void onLeaderboard(Connection conn, String board, String rows) {}
+
+    /** A line this SDK does not know. */
+    default void onUnknown(Connection conn, String line) {}
+
+    /** The connection is closed; cause is null for a normal close. */
+    default void onDisconnected(Connection conn, Throwable cause) {}
+}
@@ -0,0 +1,61 @@
+package client.sdk;
+
+import java.util.SplittableRandom;
+
+/**
+ * ShotPolicy - how a bot picks its next target.
+ */
+public interface ShotPolicy {
+
+    /**
+     * Cell to fire at, encoded as x * board.size() + y.
+     * Only called when board still has unknown cells.
+     */
+    int nextShot(TargetBoard board);
+
+    /** Uniformly random among the cells not fired at yet. */
+    static ShotPolicy random(long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        return board -> randomUnknown(board, rng);
+    }
+
+    /**
+     * Hunt/target: fires next to an unsunk hit when there is one,
+     * otherwise at a random unknown cell of a checkerboard parity.
+     */
+    static ShotPolicy huntTarget(long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        return board -> {
+            int n = board.size();
+            for (int x = 0; x < n; x++) {
+                for (int y = 0; y < n; y++) {
+                    if (board.get(x, y) != TargetBoard.HIT) continue;
+                    if (x > 0 && board.isUnknown(x - 1, y)) return (x - 1) * n + y;
+                    if (x < n - 1 && board.isUnknown(x + 1, y)) return (x + 1) * n + y;
+                    if (y > 0 && board.isUnknown(x, y - 1)) return x * n + y - 1;
+                    if (y < n - 1 && board.isUnknown(x, y + 1)) return x * n + y + 1;
+                }
+            }
+            // every ship is at least 2 long: one colour of the checkerboard is enough to find them
+            int parityCells = 0;
+            for (int i = 0; i < n * n; i++) {
+                if (((i / n + i % n) & 1) == 0 && board.isUnknown(i / n, i % n)) parityCells++;
+            }
+            if (parityCells == 0) return randomUnknown(board, rng);
+            int pick = rng.nextInt(parityCells);
+            for (int i = 0; i < n * n; i++) {
+                if (((i / n + i % n) & 1) == 0 && board.isUnknown(i / n, i % n) && pick-- == 0) return i;
+            }
+            return randomUnknown(board, rng);
+        };
+    }
+
+    private static int randomUnknown(TargetBoard board, SplittableRandom rng) {
+        int n = board.size();
+        int pick = rng.nextInt(board.unknownCount());
+        for (int i = 0; i < n * n; i++) {
+            if (board.isUnknown(i / n, i % n) && pick-- == 0) return i;
+        }
+        throw new IllegalStateException("no unknown cell left");
+    }
+}
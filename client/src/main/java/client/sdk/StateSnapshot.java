@@ -0,0 +1,102 @@
+package client.sdk;
+
+/**
+ * StateSnapshot - both boards as seen by this player, from a STATE line.
+ *
+ *   STATE|seq|size|mine|theirs|turn|over
+ *
+ * Each board is 2 bits per cell, row by row, four cells per byte (first cell
+ * in the high bits), hex encoded. seq is the number of the last shot the
+ * snapshot includes; later RESULT / OPPONENT_FIRE lines carry higher numbers.
+ * turn is YOU or OPP, over is 1 once the game has ended.
+ */
+public final class StateSnapshot {
+
+    // ======== Cell codes, own board ========
+    public static final int WATER = 0;
+    public static final int SHIP = 1;
+    // ======== Cell codes, opponent board ========
+    public static final int UNKNOWN = 0;
+    public static final int SUNK = 1;
+    // ======== Both boards ========
+    public static final int MISS = 2;
+    public static final int HIT = 3;
+
+    private final int seq;
+    private final int size;
+    private final byte[] mine;
+    private final byte[] theirs;
+    private final boolean myTurn;
+    private final boolean over;
+
+    private StateSnapshot(int seq, int size, byte[] mine, byte[] theirs, boolean myTurn, boolean over) {
+        this.seq = seq;
+        this.size = size;
+        this.mine = mine;
+        this.theirs = theirs;
+        this.myTurn = myTurn;
+        this.over = over;
+    }
+
+    /** Parses "seq|size|mine|theirs|turn|over" (the part after STATE|); null if malformed. */
+    static StateSnapshot parse(String rest) {
+        String[] p = rest.split("\\|");
+        if (p.length != 6) return null;
+        if (!p[4].equals("YOU") && !p[4].equals("OPP") || !p[5].equals("0") && !p[5].equals("1")) return null;
+        try {
+            int seq = Integer.parseInt(p[0]);
+            int size = Integer.parseInt(p[1]);
+            int bytes = (size * size + 3) / 4;
+            byte[] mine = unhex(p[2]);
+            byte[] theirs = unhex(p[3]);
+            if (size <= 0 || mine.length != bytes || theirs.length != bytes) return null;
+            return new StateSnapshot(seq, size, mine, theirs, p[4].equals("YOU"), p[5].equals("1"));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public int seq() {
+        return seq;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** True if it is this player's turn to shoot. */
+    public boolean myTurn() {
+        return myTurn;
+    }
+
+    /** True once the game has ended (won, lost or abandoned). */
+    public boolean over() {
+        return over;
+    }
+
+    /** WATER, SHIP, MISS or HIT. */
+    public int mine(int x, int y) {
+        return cell(mine, x * size + y);
+    }
+
+    /** UNKNOWN, SUNK, MISS or HIT. */
+    public int theirs(int x, int y) {
+        return cell(theirs, x * size + y);
+    }
+
+    private static int cell(byte[] board, int i) {
+        return board[i / 4] >> 6 - 2 * (i % 4) & 3;
+    }
+
+    private static byte[] unhex(String s) {
+        if (s.length() % 2 != 0) throw new IllegalArgumentException(s);
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16);
+            int lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) throw new IllegalArgumentException(s);
+            b[i] = (byte) (hi << 4 | lo);
+        }
+        return b;
+    }
+}
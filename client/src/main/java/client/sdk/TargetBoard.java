@@ -0,0 +1,63 @@
+package client.sdk;
+
+import protocol.ShotResult;
+
+import java.util.Arrays;
+
+/**
+ * TargetBoard - what a player knows about the opponent's grid.
+ * Updated from RESULT lines; read by {@link ShotPolicy} implementations.
+ */
+public final class TargetBoard {
+
+    public static final byte UNKNOWN = 0;
+    public static final byte MISS = 1;
+    public static final byte HIT = 2;
+    public static final byte SUNK = 3;
+
+    private final int size;
+    private final byte[] cells;
+    private int unknown;
+
+    public TargetBoard(int size) {
+        this.size = size;
+        this.cells = new byte[size * size];
+        this.unknown = cells.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte get(int x, int y) {
+        return cells[x * size + y];
+    }
+
+    public boolean isUnknown(int x, int y) {
+        return cells[x * size + y] == UNKNOWN;
+    }
+
+    /** Number of cells not fired at yet. */
+    public int unknownCount() {
+        return unknown;
+    }
+
+    public void mark(int x, int y, ShotResult result) {
+        if (x < 0 || y < 0 || x >= size || y >= size) return;
+        byte v;
+        switch (result) {
+            case MISS: v = MISS; break;
+            case HIT: v = HIT; break;
+            case SUNK: v = SUNK; break;
+            default: return;
+        }
+        int i = x * size + y;
+        if (cells[i] == UNKNOWN) unknown--;
+        cells[i] = v;
+    }
+
+    public void reset() {
+        Arrays.fill(cells, UNKNOWN);
+        unknown = cells.length;
+    }
+}
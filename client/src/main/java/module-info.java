@@ -0,0 +1,9 @@
+/**
+ * Swing client and the UI-free client SDK (bots, load tests).
+ */
+module bataillenavale.client {
+    requires transitive bataillenavale.protocol;
+    requires java.desktop;
+
+    exports client.sdk;
+}
@@ -0,0 +1,6 @@
+/**
+ * Format des lignes échangées entre le serveur et les clients.
+ */
+module bataillenavale.protocol {
+    exports protocol;
+}
@@ -0,0 +1,163 @@
+package protocol;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table des messages serveur -> client.
+ *
+ * Les trames constantes (ASKMODE, START, ERROR|...) sont encodées une
+ * seule fois au chargement de la classe. Les trames avec coordonnées
+ * (RESULT|..., OPPONENT_FIRE|...) ou numéro de séquence sont écrites
+ * directement dans le tampon de sortie de la connexion, sans passer par une
+ * String. Un tir qui change un plateau porte en dernier champ son numéro de
+ * séquence dans la partie : RESULT|HIT|x|y|seq (RESULT|ALREADY|x|y n'en a
+ * pas). TURN et END portent le numéro du dernier tir joué : TURN|YOU|seq,
+ * END|WIN|seq. START ouvre une partie : les numéros repartent de 1.
+ *
+ * Les tableaux sont partagés par toutes les connexions : à ne jamais modifier.
+ */
+public final class Messages {
+
+    /** Tampon suffisant pour la plus longue trame formatée (préfixe + résultat + 3 entiers). */
+    public static final int MAX_FRAME = 64;
+
+    // ======== Trames constantes ========
+    public static final byte[] ASKMODE = frame("ASKMODE");
+    public static final byte[] START = frame("START");
+    public static final byte[] ERR_FORMAT = frame("ERROR|Format tir invalide");
+    public static final byte[] ERR_NOT_YOUR_TURN = frame("ERROR|Pas votre tour");
+    public static final byte[] ERR_CHAT_TOO_LONG = frame("ERROR|Message trop long");
+    public static final byte[] ERR_CHAT_RATE = frame("ERROR|Trop de messages, patientez");
+    public static final byte[] ERR_NO_GAME = frame("ERROR|Aucune partie");
+    // accentué : encodé comme les trames libres, pas en ASCII
+    public static final byte[] ERR_PSEUDO = encode("ERROR|Pseudo vide ou avec un caractère interdit (barre, deux-points, point-virgule), recommencez");
+
+    // ======== Morceaux des trames de tir ========
+    public static final byte[] RESULT = ascii("RESULT|");
+    public static final byte[] OPPONENT_FIRE = ascii("OPPONENT_FIRE|");
+    public static final byte[] HIT = ascii("HIT");
+    public static final byte[] MISS = ascii("MISS");
+    public static final byte[] SUNK = ascii("SUNK");
+    public static final byte[] ALREADY = ascii("ALREADY");
+
+    // ======== Trames suivies du numéro de séquence (formatSeq) ========
+    public static final byte[] TURN_YOU = ascii("TURN|YOU");
+    public static final byte[] TURN_OPP = ascii("TURN|OPP");
+    public static final byte[] END_WIN = ascii("END|WIN");
+    public static final byte[] END_LOSE = ascii("END|LOSE");
+    public static final byte[] END_ABANDON = ascii("END|ABANDON");
+
+    /** Coordonnées pour lesquelles RESULT|ALREADY|x|y est pré-encodé. */
+    private static final int ALREADY_CACHED = 32;
+    private static final byte[][] ALREADY_FRAMES = new byte[ALREADY_CACHED * ALREADY_CACHED][];
+
+    static {
+        byte[] buf = new byte[MAX_FRAME];
+        for (int x = 0; x < ALREADY_CACHED; x++) {
+            for (int y = 0; y < ALREADY_CACHED; y++) {
+                int len = formatShot(buf, RESULT, ALREADY, x, y);
+                byte[] f = new byte[len];
+                System.arraycopy(buf, 0, f, 0, len);
+                ALREADY_FRAMES[x * ALREADY_CACHED + y] = f;
+            }
+        }
+    }
+
+    private Messages() {}
+
+    /** RESULT|ALREADY|x|y pré-encodé, ou null si hors de la plage mise en cache. */
+    public static byte[] already(int x, int y) {
+        if (x < 0 || y < 0 || x >= ALREADY_CACHED || y >= ALREADY_CACHED) return null;
+        return ALREADY_FRAMES[x * ALREADY_CACHED + y];
+    }
+
+    /**
+     * Écrit "prefix + result + |x|y\n" dans dst à partir de l'indice 0.
+     * Retourne le nombre d'octets écrits.
+     */
+    public static int formatShot(byte[] dst, byte[] prefix, byte[] result, int x, int y) {
+        int pos = 0;
+        System.arraycopy(prefix, 0, dst, pos, prefix.length);
+        pos += prefix.length;
+        System.arraycopy(result, 0, dst, pos, result.length);
+        pos += result.length;
+        dst[pos++] = '|';
+        pos = writeInt(dst, pos, x);
+        dst[pos++] = '|';
+        pos = writeInt(dst, pos, y);
+        dst[pos++] = '\n';
+        return pos;
+    }
+
+    /** Comme formatShot(dst, prefix, result, x, y), suivi de "|seq". */
+    public static int formatShot(byte[] dst, byte[] prefix, byte[] result, int x, int y, int seq) {
+        int pos = formatShot(dst, prefix, result, x, y) - 1; // on remplace le '\n'
+        dst[pos++] = '|';
+        pos = writeInt(dst, pos, seq);
+        dst[pos++] = '\n';
+        return pos;
+    }
+
+    /**
+     * Écrit "head|seq\n" dans dst à partir de l'indice 0.
+     * Retourne le nombre d'octets écrits.
+     */
+    public static int formatSeq(byte[] dst, byte[] head, int seq) {
+        System.arraycopy(head, 0, dst, 0, head.length);
+        int pos = head.length;
+        dst[pos++] = '|';
+        pos = writeInt(dst, pos, seq);
+        dst[pos++] = '\n';
+        return pos;
+    }
+
+    /**
+     * Pseudo acceptable : non vide et sans les séparateurs des trames
+     * ('|' entre champs, ':' et ';' dans LEADERBOARD).
+     */
+    public static boolean validPseudo(String pseudo) {
+        if (pseudo.isEmpty()) return false;
+        for (int i = 0; i < pseudo.length(); i++) {
+            char c = pseudo.charAt(i);
+            if (c == '|' || c == ':' || c == ';') return false;
+        }
+        return true;
+    }
+
+    /** Encode une trame libre (MSG|..., CHAT|...) avec le charset des clients. */
+    public static byte[] encode(String line) {
+        return (line + '\n').getBytes(Charset.defaultCharset());
+    }
+
+    private static int writeInt(byte[] dst, int pos, int v) {
+        if (v < 0) {
+            dst[pos++] = '-';
+            v = -v;
+        }
+        if (v < 10) {
+            dst[pos++] = (byte) ('0' + v);
+            return pos;
+        }
+        int start = pos;
+        while (v > 0) {
+            dst[pos++] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        // chiffres écrits à l'envers : on les retourne
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte t = dst[i];
+            dst[i] = dst[j];
+            dst[j] = t;
+        }
+        return pos;
+    }
+
+    private static byte[] frame(String s) {
+        return ascii(s + '\n');
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,19 @@
+package protocol;
+
+/**
+ * Résultat d'un tir, tel qu'envoyé dans les trames RESULT|... et OPPONENT_FIRE|...
+ */
+public enum ShotResult {
+    MISS, HIT, SUNK, ALREADY;
+
+    /** Lit le mot du protocole (sans tenir compte de la casse) ; null s'il est inconnu. */
+    public static ShotResult parse(String token) {
+        switch (token.toUpperCase()) {
+            case "MISS": return MISS;
+            case "HIT": return HIT;
+            case "SUNK": return SUNK;
+            case "ALREADY": return ALREADY;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Construit le runtime du serveur : build-image.sh <java.home> <module-path> <image>
+#
+#  1. jlink : JDK réduit aux modules du serveur (java.base, jdk.jfr, ...)
+#  2. archive CDS des classes du JDK (lib/server/classes.jsa)
+#  3. archive AppCDS dynamique (lib/server/app.jsa) : le serveur est lancé une
+#     fois, reçoit une connexion et joue quelques coups contre l'IA, puis est
+#     arrêté ; les classes chargées sont archivées à la sortie de la JVM.
+#
+# L'étape 3 écoute sur le port du serveur (1234), qui doit être libre ; le
+# port d'administration y est coupé (bn.admin.port=0), 1235 peut être pris.
+set -euo pipefail
+
+JAVA_HOME_DIR=$1
+MODULE_PATH=$2
+IMAGE=$3
+HERE=$(cd "$(dirname "$0")" && pwd)
+
+rm -rf "$IMAGE"
+"$JAVA_HOME_DIR/bin/jlink" \
+    --module-path "$MODULE_PATH" \
+    --add-modules bataillenavale.server \
+    --output "$IMAGE" \
+    --strip-debug --no-header-files --no-man-pages --compress=2
+
+"$IMAGE/bin/java" -Xshare:dump -Xlog:cds=off -version > /dev/null 2>&1
+
+cp "$HERE/bin/bataillenavale-server" "$IMAGE/bin/"
+chmod +x "$IMAGE/bin/bataillenavale-server"
+
+# ---------- entraînement AppCDS ----------
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+"$IMAGE/bin/java" -XX:ArchiveClassesAtExit="$IMAGE/lib/server/app.jsa" -Xlog:cds=off \
+    -Dbn.data="$WORK/data" -Dbn.log.dir="$WORK/logs" -Dbn.log.console=false -Dbn.admin.port=0 \
+    -m bataillenavale.server/server.Server &
+SERVER=$!
+
+up() { (exec 3<>/dev/tcp/127.0.0.1/1234) 2>/dev/null; }
+for _ in $(seq 100); do up && break; sleep 0.1; done
+
+{
+    exec 3<>/dev/tcp/127.0.0.1/1234
+    printf 'cds\n2\nLEADERBOARD\nSHOT|0|0\n' >&3
+    sleep 1
+    printf 'SHOT|0|1\nCHAT|cds\nQUIT\n' >&3
+    sleep 0.5
+    exec 3<&-
+} || true
+
+kill -TERM "$SERVER"
+wait "$SERVER" || true
+test -f "$IMAGE/lib/server/app.jsa"
+echo "Image du serveur : $IMAGE ($(du -sh "$IMAGE" | cut -f1))"
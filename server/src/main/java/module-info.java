@@ -0,0 +1,7 @@
+/**
+ * Serveur de jeu : connexions, parties, IA, tournois, classement.
+ */
+module bataillenavale.server {
+    requires bataillenavale.protocol;
+    requires jdk.jfr;
+}
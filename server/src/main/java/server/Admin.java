@@ -0,0 +1,181 @@
+package server;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Interface d'administration : un port texte écouté sur la seule adresse de
+ * bouclage (-Dbn.admin.port, 1235 par défaut, 0 pour la désactiver).
+ *
+ * Une commande par ligne ; la réponse est faite de zéro ou plusieurs lignes
+ * suivies de OK, ou d'une seule ligne ERROR|message :
+ *
+ *   STATUS            connexions, parties en cours, drain
+ *   CONNS             une ligne CONN|n|pseudo|adresse|état|partie par connexion
+ *   GAMES             une ligne GAME|id|mode|joueurs|seq|secondes par partie en cours
+ *   GAME|id           la partie, puis les plateaux de chaque joueur (BOARD|pseudo|STATE|...)
+ *   KICK|pseudo ou KICK|#n   déconnecte le joueur (ou la connexion n)
+ *   DRAIN             plus de nouvelle partie ; arrêt quand les parties en cours sont finies
+ *   QUIT              ferme la session
+ *
+ * Un seul thread, une session à la fois : c'est un outil d'exploitation,
+ * pas un chemin de jeu. Une session sans commande pendant
+ * bn.admin.idleSeconds (60 par défaut) est fermée, pour ne pas bloquer la
+ * suivante.
+ */
+final class Admin implements Runnable {
+
+    private static final int IDLE_MS = Integer.getInteger("bn.admin.idleSeconds", 60) * 1000;
+
+    private final ServerSocket socket;
+
+    private Admin(ServerSocket socket) {
+        this.socket = socket;
+    }
+
+    /** Démarre l'écoute d'administration, sauf si le port vaut 0. */
+    static void start() {
+        int port = Integer.getInteger("bn.admin.port", 1235);
+        if (port == 0) return;
+        try {
+            ServerSocket s = new ServerSocket(port, 4, InetAddress.getLoopbackAddress());
+            Thread t = new Thread(new Admin(s), "Admin");
+            t.setDaemon(true);
+            t.start();
+            Log.info("admin_start", "port=" + port);
+        } catch (IOException e) {
+            Log.error("admin_failed", "port=" + port, e);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try (Socket s = socket.accept()) {
+                s.setSoTimeout(IDLE_MS);
+                session(s);
+            } catch (SocketTimeoutException e) {
+                Log.info("admin_idle", "seconds=" + IDLE_MS / 1000);
+            } catch (IOException e) {
+                Log.warn("admin_session_lost", e.getMessage());
+            }
+        }
+    }
+
+    private void session(Socket s) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+        Log.info("admin_connect", "remote=" + s.getRemoteSocketAddress());
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equalsIgnoreCase("QUIT")) break;
+            List<String> reply = new ArrayList<>();
+            String error = execute(line, reply);
+            for (String r : reply) out.write(r + "\n");
+            out.write(error != null ? "ERROR|" + error + "\n" : "OK\n");
+            out.flush();
+        }
+    }
+
+    /** Exécute une commande ; retourne null si elle a réussi, sinon le message d'erreur. */
+    private static String execute(String line, List<String> reply) {
+        int bar = line.indexOf('|');
+        String cmd = (bar < 0 ? line : line.substring(0, bar)).toUpperCase(Locale.ROOT);
+        String arg = bar < 0 ? null : line.substring(bar + 1);
+        switch (cmd) {
+            case "STATUS":
+                reply.add("STATUS|connections=" + Server.connections().size()
+                        + "|games=" + activeGames().size()
+                        + "|draining=" + Server.isDraining());
+                return null;
+            case "CONNS":
+                for (Server.ClientHandler h : sorted(Server.connections())) {
+                    Game g = h.game();
+                    reply.add("CONN|" + h.conn() + "|" + h.pseudo() + "|" + h.remote() + "|"
+                            + h.state() + "|" + (g != null ? g.id : "-"));
+                }
+                return null;
+            case "GAMES":
+                for (List<Server.ClientHandler> players : activeGames().values()) {
+                    reply.add(describe(players));
+                }
+                return null;
+            case "GAME":
+                return inspect(arg, reply);
+            case "KICK":
+                return kick(arg, reply);
+            case "DRAIN":
+                Server.drain();
+                reply.add("DRAINING|games=" + activeGames().size());
+                return null;
+            default:
+                return "commande inconnue : " + cmd;
+        }
+    }
+
+    private static String inspect(String arg, List<String> reply) {
+        long id;
+        try {
+            id = Long.parseLong(arg);
+        } catch (NumberFormatException e) {
+            return "GAME|id attendu";
+        }
+        List<Server.ClientHandler> players = new ArrayList<>();
+        for (Server.ClientHandler h : sorted(Server.connections())) {
+            Game g = h.game();
+            if (g != null && g.id == id) players.add(h);
+        }
+        if (players.isEmpty()) return "partie inconnue : " + id;
+        reply.add(describe(players));
+        for (Server.ClientHandler h : players) {
+            reply.add("TURN|" + h.pseudo() + "|" + (h.isMyTurn() ? "YOU" : "OPP"));
+            reply.add("BOARD|" + h.pseudo() + "|" + h.snapshot());
+        }
+        return null;
+    }
+
+    private static String kick(String arg, List<String> reply) {
+        if (arg == null || arg.isEmpty()) return "KICK|pseudo ou KICK|#n attendu";
+        for (Server.ClientHandler h : Server.connections()) {
+            boolean match = arg.startsWith("#") ? arg.substring(1).equals(String.valueOf(h.conn()))
+                    : arg.equals(h.pseudo());
+            if (match) {
+                h.kick("MSG|Vous avez été déconnecté par l'administrateur.");
+                reply.add("KICKED|" + h.conn() + "|" + h.pseudo());
+            }
+        }
+        return reply.isEmpty() ? "aucune connexion : " + arg : null;
+    }
+
+    /** Parties en cours, par id, avec leurs joueurs connectés (un seul contre l'IA). */
+    static Map<Long, List<Server.ClientHandler>> activeGames() {
+        Map<Long, List<Server.ClientHandler>> games = new TreeMap<>();
+        for (Server.ClientHandler h : sorted(Server.connections())) {
+            Game g = h.game();
+            if (g != null && h.inGame()) games.computeIfAbsent(g.id, k -> new ArrayList<>(2)).add(h);
+        }
+        return games;
+    }
+
+    private static String describe(List<Server.ClientHandler> players) {
+        Server.ClientHandler first = players.get(0);
+        Game g = first.game();
+        StringJoiner names = new StringJoiner(",");
+        for (Server.ClientHandler h : players) names.add(h.pseudo());
+        if (first.isVsIA()) names.add(MatchResult.IA);
+        long seconds = (System.currentTimeMillis() - g.startedAt) / 1000;
+        return "GAME|" + g.id + "|" + first.modeName() + "|" + names + "|" + g.seq() + "|" + seconds;
+    }
+
+    private static List<Server.ClientHandler> sorted(Collection<Server.ClientHandler> handlers) {
+        List<Server.ClientHandler> list = new ArrayList<>(handlers);
+        list.sort(Comparator.comparingInt(Server.ClientHandler::conn));
+        return list;
+    }
+}
@@ -0,0 +1,192 @@
+package server;
+
+import protocol.Messages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chat du serveur : un salon (lobby) et un canal par partie JvJ.
+ *
+ * Tout l'état des canaux (membres, historique) appartient à un seul thread,
+ * "ChatFanout" : pas de verrou, et la diffusion à N membres n'est jamais
+ * faite par le thread d'une connexion. Chaque message est encodé une fois
+ * en CHAT|from|text puis la même trame est mise dans la file d'envoi
+ * (Outbox) de chaque membre sauf l'auteur (le client affiche déjà son propre
+ * message). Les derniers messages de chaque canal sont rejoués à qui le
+ * rejoint.
+ *
+ * ChatFanout n'écrit jamais sur une socket : chaque file est vidée par une
+ * tâche de l'executor d'envoi. Un client qui ne lit plus bloque sa seule
+ * tâche ; sa file pleine, ses messages de chat sont abandonnés.
+ *
+ * Les limites (taille, débit par joueur, file de diffusion) sont vérifiées
+ * par le thread de l'auteur avant toute mise en file.
+ */
+final class ChatService {
+
+    static final int MAX_TEXT = 200;
+    private static final int LOBBY_HISTORY = 100;
+    private static final int GAME_HISTORY = 30;
+    // messages en attente de diffusion au-delà desquels on abandonne
+    private static final int MAX_PENDING = 10_000;
+    // trames en attente d'envoi par membre (au moins l'historique du salon)
+    private static final int OUTBOX = 128;
+
+    /** Canal : membres et historique, lus et modifiés par le seul thread de diffusion. */
+    static final class Channel {
+        private final boolean lobby;
+        private final List<Server.ClientHandler> members = new ArrayList<>();
+        private final byte[][] history;
+        private int historyNext = 0;
+        private int historyCount = 0;
+
+        private Channel(boolean lobby, int historySize) {
+            this.lobby = lobby;
+            this.history = new byte[historySize][];
+        }
+
+        private void remember(byte[] frame) {
+            history[historyNext] = frame;
+            historyNext = (historyNext + 1) % history.length;
+            if (historyCount < history.length) historyCount++;
+        }
+    }
+
+    /** File d'envoi du chat d'un membre, bornée ; remplie par ChatFanout. */
+    static final class Outbox {
+        private final ConcurrentLinkedQueue<byte[]> frames = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        // une tâche d'envoi au plus par membre
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    /** Débit d'un joueur (seau à jetons) ; utilisé par le seul thread de sa connexion. */
+    static final class Quota {
+        private static final double BURST = 5;
+        private static final double PER_SECOND = 1;
+
+        private double tokens = BURST;
+        private long last = System.nanoTime();
+
+        private boolean take() {
+            long now = System.nanoTime();
+            tokens = Math.min(BURST, tokens + (now - last) / 1e9 * PER_SECOND);
+            last = now;
+            if (tokens < 1) return false;
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    final Channel lobby = new Channel(true, LOBBY_HISTORY);
+    private final Executor senders;
+
+    private final ExecutorService fanout = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ChatFanout");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    /** senders vide les files d'envoi ; ses threads peuvent bloquer sur une socket. */
+    ChatService(Executor senders) {
+        this.senders = senders;
+    }
+
+    Channel openGame() {
+        return new Channel(false, GAME_HISTORY);
+    }
+
+    /** Ajoute h au canal ; replay : lui renvoyer l'historique. */
+    void join(Channel c, Server.ClientHandler h, boolean replay) {
+        fanout.execute(() -> {
+            if (!c.members.contains(h)) c.members.add(h);
+            if (replay) replay(c, h);
+        });
+    }
+
+    private void replay(Channel c, Server.ClientHandler h) {
+        int start = (c.historyNext - c.historyCount + c.history.length) % c.history.length;
+        for (int i = 0; i < c.historyCount; i++) {
+            enqueue(h, c.history[(start + i) % c.history.length]);
+        }
+    }
+
+    void leave(Channel c, Server.ClientHandler h) {
+        fanout.execute(() -> c.members.remove(h));
+    }
+
+    /** Fin de partie : le canal n'a plus de membres. */
+    void close(Channel c) {
+        fanout.execute(c.members::clear);
+    }
+
+    /**
+     * Publie text de la part de from. Retourne null si le message est accepté,
+     * sinon la trame d'erreur à renvoyer à l'auteur.
+     */
+    byte[] post(Channel c, Server.ClientHandler from, Quota quota, String text) {
+        if (text.length() > MAX_TEXT) return Messages.ERR_CHAT_TOO_LONG;
+        if (!quota.take()) return Messages.ERR_CHAT_RATE;
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return null; // surcharge du serveur, pas la faute de l'auteur
+        }
+        fanout.execute(() -> {
+            pending.decrementAndGet();
+            deliver(c, from, text);
+        });
+        return null;
+    }
+
+    /** Messages abandonnés faute de place dans la file de diffusion ou dans celle d'un membre. */
+    long dropped() {
+        return dropped.sum();
+    }
+
+    private void deliver(Channel c, Server.ClientHandler from, String text) {
+        // pas de '|' dans un pseudo (refusé à la connexion) : le texte reste le dernier champ
+        byte[] frame = Messages.encode("CHAT|" + from.pseudo() + "|" + text);
+        c.remember(frame);
+        for (Server.ClientHandler h : c.members) {
+            if (h == from || h.isDisconnected()) continue;
+            // au salon, seuls les joueurs hors partie (JvJ, tournoi ou contre l'IA) reçoivent
+            if (c.lobby && h.inGame()) continue;
+            enqueue(h, frame);
+        }
+    }
+
+    /** Appelé par ChatFanout : ne bloque jamais, abandonne si la file de h est pleine. */
+    private void enqueue(Server.ClientHandler h, byte[] frame) {
+        Outbox o = h.chatOut();
+        if (o.size.incrementAndGet() > OUTBOX) {
+            o.size.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        o.frames.add(frame);
+        if (o.draining.compareAndSet(false, true)) senders.execute(() -> drain(h, o));
+    }
+
+    private static void drain(Server.ClientHandler h, Outbox o) {
+        do {
+            byte[] frame;
+            while ((frame = o.frames.poll()) != null) {
+                o.size.decrementAndGet();
+                h.send(frame);
+            }
+            o.draining.set(false);
+            // une trame ajoutée entre le dernier poll et set(false) : on reprend
+        } while (!o.frames.isEmpty() && o.draining.compareAndSet(false, true));
+    }
+}
@@ -0,0 +1,155 @@
+package server;
+
+import protocol.Messages;
+
+import jdk.jfr.*;
+
+/**
+ * Événements Java Flight Recorder du serveur.
+ *
+ * Tous désactivés par défaut : tant qu'aucun enregistrement ne les active,
+ * un événement n'est qu'un objet que le JIT élimine, et les champs coûteux
+ * (chaînes, adresses) ne sont remplis qu'après shouldCommit(). Pour les
+ * enregistrer avec le GC et l'ordonnancement des threads :
+ *
+ *   java -XX:StartFlightRecording=settings=profile,settings=jfr/bataillenavale.jfc,filename=bn.jfr ...
+ */
+final class Events {
+
+    private static final String CATEGORY = "Bataille Navale";
+
+    private Events() {}
+
+    @Name("bataillenavale.ConnectionAccept")
+    @Label("Connexion acceptée")
+    @Category({CATEGORY, "Connexions"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ConnectionAccept extends Event {
+        @Label("Connexion")
+        int conn;
+        @Label("Adresse distante")
+        String remote;
+    }
+
+    /** De la connexion au choix du mode (pseudo + mode). */
+    @Name("bataillenavale.Handshake")
+    @Label("Accueil")
+    @Category({CATEGORY, "Connexions"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Handshake extends Event {
+        @Label("Connexion")
+        int conn;
+        @Label("Joueur")
+        String player;
+        @Label("Mode")
+        String mode;
+    }
+
+    /** Attente d'un adversaire en JvJ, jusqu'à la partie ou la déconnexion. */
+    @Name("bataillenavale.MatchmakingWait")
+    @Label("Attente d'adversaire")
+    @Category({CATEGORY, "Parties"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class MatchmakingWait extends Event {
+        @Label("Joueur")
+        String player;
+        @Label("Adversaire trouvé")
+        boolean matched;
+    }
+
+    @Name("bataillenavale.Shot")
+    @Label("Tir")
+    @Category({CATEGORY, "Parties"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Shot extends Event {
+        @Label("Partie")
+        long game;
+        @Label("Joueur")
+        String player;
+        @Label("Ligne")
+        int x;
+        @Label("Colonne")
+        int y;
+        @Label("Résultat")
+        String result;
+
+        /** Termine la mesure et enregistre le tir si l'événement est activé. */
+        void finish(Game g, String p, int x, int y, byte[] r) {
+            end();
+            if (!shouldCommit()) return;
+            game = g.id;
+            player = p;
+            this.x = x;
+            this.y = y;
+            result = resultName(r);
+            commit();
+        }
+    }
+
+    /** Choix d'un coup par l'IA, sans la pause d'affichage. */
+    @Name("bataillenavale.AIMove")
+    @Label("Coup de l'IA")
+    @Category({CATEGORY, "IA"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class AIMove extends Event {
+        @Label("Partie")
+        long game;
+        @Label("IA difficile")
+        boolean hard;
+        @Label("Ligne")
+        int x;
+        @Label("Colonne")
+        int y;
+    }
+
+    @Name("bataillenavale.GameEnd")
+    @Label("Fin de partie")
+    @Category({CATEGORY, "Parties"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class GameEnd extends Event {
+        @Label("Partie")
+        long game;
+        @Label("Graine")
+        @Unsigned
+        long seed;
+        @Label("Mode")
+        String mode;
+        @Label("Fin")
+        String reason;
+        @Label("Gagnant")
+        String winner;
+        @Label("Perdant")
+        String loser;
+        @Label("Durée de la partie")
+        @Timespan(Timespan.MILLISECONDS)
+        long length;
+    }
+
+    /** reason : WIN, ABANDON, DISCONNECT ou DEADLINE. */
+    static void gameEnded(Game g, String mode, String reason, String winner, String loser) {
+        GameEnd e = new GameEnd();
+        if (!e.shouldCommit()) return;
+        e.game = g.id;
+        e.seed = g.seed;
+        e.mode = mode;
+        e.reason = reason;
+        e.winner = winner;
+        e.loser = loser;
+        e.length = System.currentTimeMillis() - g.startedAt;
+        e.commit();
+    }
+
+    static String resultName(byte[] result) {
+        if (result == Messages.MISS) return "MISS";
+        if (result == Messages.HIT) return "HIT";
+        if (result == Messages.SUNK) return "SUNK";
+        if (result == Messages.ALREADY) return "ALREADY";
+        return "?";
+    }
+}
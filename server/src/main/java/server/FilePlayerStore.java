@@ -0,0 +1,290 @@
+package server;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * PlayerStore embarqué, sur fichiers, sans base externe.
+ *
+ *  - players.db  : journal append-only, une ligne "pseudo\twins\tlosses\trating"
+ *                  par mise à jour ; la dernière ligne d'un pseudo fait foi.
+ *  - matches.log : historique "timestamp\twinner\tloser\tmode\tseed".
+ *
+ * Les pseudos arrivent déjà nettoyés (sans tabulation ni fin de ligne, voir
+ * Server.ClientHandler.cleanPseudo) : la clé en mémoire est celle du disque.
+ *
+ * Les lectures passent par un cache LRU puis par un index pseudo -> offset
+ * dans le journal. Les résultats sont mis en file et appliqués par un seul
+ * thread d'écriture, par lots : les threads de jeu ne touchent jamais le disque.
+ */
+final class FilePlayerStore implements PlayerStore {
+
+    private static final int CACHE_SIZE = 10_000;
+    private static final int BATCH_MAX = 1024;
+
+    private final FileChannel players;
+    private final FileChannel matches;
+
+    // pseudo -> offset de la dernière ligne du joueur dans players.db
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final Map<String, PlayerProfile> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlayerProfile> e) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    // marque de fin pour le thread d'écriture (pas d'interrupt : il fermerait le FileChannel)
+    private static final MatchResult POISON = new MatchResult(null, null, 0);
+
+    private final LinkedBlockingQueue<MatchResult> pending = new LinkedBlockingQueue<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    private FilePlayerStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path playersFile = dir.resolve("players.db");
+        compact(playersFile);
+        players = FileChannel.open(playersFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        matches = FileChannel.open(dir.resolve("matches.log"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        loadIndex(playersFile);
+
+        writer = new Thread(this::writeLoop, "PlayerStoreWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static FilePlayerStore open(Path dir) throws IOException {
+        return new FilePlayerStore(dir);
+    }
+
+    @Override
+    public PlayerProfile find(String pseudo) {
+        if (pseudo == null) return null;
+        synchronized (cache) {
+            PlayerProfile p = cache.get(pseudo);
+            if (p != null) return p;
+        }
+        Long offset = index.get(pseudo);
+        if (offset == null) return null;
+        try {
+            PlayerProfile p = parse(readLine(offset));
+            if (p == null) return null;
+            synchronized (cache) {
+                // le thread d'écriture a pu publier une version plus récente entre-temps
+                cache.putIfAbsent(pseudo, p);
+                return cache.get(pseudo);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void recordResult(MatchResult result) {
+        if (closed || result.winner == null || result.loser == null) return;
+        pending.offer(result);
+    }
+
+    @Override
+    public void forEachProfile(Consumer<PlayerProfile> action) {
+        for (String pseudo : index.keySet()) {
+            PlayerProfile p = find(pseudo);
+            if (p != null) action.accept(p);
+        }
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pending.offer(POISON);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            players.force(false);
+            matches.force(false);
+            players.close();
+            matches.close();
+        } catch (IOException ignored) {}
+    }
+
+    // ----------------- écriture par lots -----------------
+
+    private void writeLoop() {
+        List<MatchResult> batch = new ArrayList<>(BATCH_MAX);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch, BATCH_MAX - 1);
+                stop = batch.remove(POISON);
+                if (stop) pending.drainTo(batch);
+                if (!batch.isEmpty()) writeBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                Log.error("store_write_failed", "batch=" + batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<MatchResult> batch) throws IOException {
+        // profils modifiés dans ce lot (un joueur peut apparaître plusieurs fois)
+        Map<String, PlayerProfile> updated = new LinkedHashMap<>();
+        // profils après chaque résultat, dans l'ordre, pour les listeners
+        PlayerProfile[] applied = new PlayerProfile[batch.size() * 2];
+        StringBuilder history = new StringBuilder(batch.size() * 48);
+
+        for (int i = 0; i < batch.size(); i++) {
+            MatchResult r = batch.get(i);
+            PlayerProfile w = null, l = null;
+            if (r.vsIA) {
+                // contre l'IA on compte la partie sans toucher au classement
+                if (r.iaWon) l = current(updated, r.loser).withLoss(0);
+                else w = current(updated, r.winner).withWin(0);
+            } else {
+                PlayerProfile cw = current(updated, r.winner);
+                PlayerProfile cl = current(updated, r.loser);
+                int delta = PlayerProfile.eloDelta(cw, cl);
+                w = cw.withWin(delta);
+                l = cl.withLoss(delta);
+            }
+            if (w != null) updated.put(w.pseudo, w);
+            if (l != null) updated.put(l.pseudo, l);
+            applied[2 * i] = w;
+            applied[2 * i + 1] = l;
+            history.append(r.timestamp).append('\t').append(r.winner).append('\t')
+                    .append(r.loser).append('\t').append(r.vsIA ? "IA" : "JvJ").append('\t')
+                    .append(Long.toHexString(r.seed)).append('\n');
+        }
+
+        long base = players.size();
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(updated.size() * 32);
+        Map<String, Long> offsets = new HashMap<>();
+        for (PlayerProfile p : updated.values()) {
+            offsets.put(p.pseudo, base + buf.size());
+            buf.writeBytes(format(p).getBytes(StandardCharsets.UTF_8));
+        }
+        writeFully(players, ByteBuffer.wrap(buf.toByteArray()), base);
+        matches.write(ByteBuffer.wrap(history.toString().getBytes(StandardCharsets.UTF_8)));
+
+        index.putAll(offsets);
+        synchronized (cache) {
+            cache.putAll(updated);
+        }
+        for (Listener listener : listeners) {
+            for (int i = 0; i < batch.size(); i++) {
+                listener.resultApplied(batch.get(i), applied[2 * i], applied[2 * i + 1]);
+            }
+        }
+    }
+
+    private PlayerProfile current(Map<String, PlayerProfile> updated, String pseudo) {
+        PlayerProfile p = updated.get(pseudo);
+        if (p == null) p = find(pseudo);
+        return p != null ? p : PlayerProfile.newPlayer(pseudo);
+    }
+
+    // ----------------- format du journal -----------------
+
+    private static String format(PlayerProfile p) {
+        return p.pseudo + '\t' + p.wins + '\t' + p.losses + '\t' + p.rating + '\n';
+    }
+
+    private static PlayerProfile parse(String line) {
+        if (line == null) return null;
+        String[] f = line.split("\t");
+        if (f.length != 4) return null;
+        try {
+            return new PlayerProfile(f[0], Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String readLine(long offset) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        ByteBuffer chunk = ByteBuffer.allocate(128);
+        long pos = offset;
+        while (true) {
+            chunk.clear();
+            int n = players.read(chunk, pos);
+            if (n <= 0) return null;
+            for (int i = 0; i < n; i++) {
+                byte b = chunk.get(i);
+                if (b == '\n') return line.toString(StandardCharsets.UTF_8);
+                line.write(b);
+            }
+            pos += n;
+        }
+    }
+
+    private void loadIndex(Path file) throws IOException {
+        try (BufferedInputStream bin = new BufferedInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            long offset = 0, start = 0;
+            int b;
+            while ((b = bin.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String s = line.toString(StandardCharsets.UTF_8);
+                int tab = s.indexOf('\t');
+                if (tab > 0) index.put(s.substring(0, tab), start);
+                line.reset();
+                start = offset;
+            }
+        }
+    }
+
+    /** Réécrit le journal avec une seule ligne par joueur s'il contient trop de versions périmées. */
+    private static void compact(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        Map<String, String> latest = new LinkedHashMap<>();
+        int lines = 0;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lines++;
+                if (parse(line) != null) latest.put(line.substring(0, line.indexOf('\t')), line);
+            }
+        }
+        if (lines <= 2 * latest.size()) return;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String line : latest.values()) {
+                w.write(line);
+                w.write('\n');
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            pos += ch.write(buf, pos);
+        }
+    }
+}
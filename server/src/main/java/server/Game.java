@@ -0,0 +1,178 @@
+package server;
+
+import protocol.Messages;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Une partie. Tout le hasard de la partie (placement des bateaux, tirs de
+ * l'IA) est tiré d'un SplittableRandom propre à la partie : la graine et la
+ * suite des tirs des joueurs suffisent à la rejouer à l'identique.
+ *
+ * Chaque tir qui change un plateau est inscrit au journal de la partie ; sa
+ * position dans le journal (1, 2, ...) est le numéro de séquence envoyé avec
+ * RESULT et OPPONENT_FIRE. Un client qui voit un trou dans la séquence
+ * redemande les tirs manquants (STATE|n) ou un instantané complet (STATE).
+ * Les plateaux et le journal sont modifiés et lus sous le verrou de la partie.
+ */
+final class Game {
+
+    private static final AtomicLong ids = new AtomicLong();
+
+    /** Bateaux de la flotte, par longueur. */
+    static final int[] FLEET = {2, 2};
+
+    final long id;
+    final long seed;
+    // utilisé par un seul thread à la fois : placement au lancement, puis tour de l'IA
+    final SplittableRandom rng;
+    final long startedAt = System.currentTimeMillis();
+
+    // journal : un int par tir, voir event()
+    private int[] events = new int[32];
+    private int eventCount = 0;
+
+    Game(long seed) {
+        this.id = ids.incrementAndGet();
+        this.seed = seed;
+        this.rng = new SplittableRandom(seed);
+    }
+
+    /** Nouvelle partie avec une graine tirée au hasard (ou fixée par -Dbn.seed pour les tests). */
+    static Game create() {
+        Long fixed = Long.getLong("bn.seed");
+        return new Game(fixed != null ? fixed : ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Vide et remplit les deux plateaux, dans cet ordre : celui du joueur qui
+     * commence (ou de l'humain contre l'IA), puis celui de son adversaire.
+     */
+    void placeFleets(int[][] first, int[][] second) {
+        placeBoats(first, rng);
+        placeBoats(second, rng);
+    }
+
+    static void placeBoats(int[][] g, SplittableRandom rng) {
+        int size = g.length;
+        for (int[] row : g) Arrays.fill(row, 0);
+        for (int len : FLEET) {
+            boolean ok = false;
+            while (!ok) {
+                int x = rng.nextInt(size);
+                int y = rng.nextInt(size);
+                boolean h = rng.nextBoolean();
+                if (fits(g, x, y, len, h)) {
+                    for (int i = 0; i < len; i++) {
+                        if (h) g[x][y + i] = 1;
+                        else g[x + i][y] = 1;
+                    }
+                    ok = true;
+                }
+            }
+        }
+    }
+
+    // ----------------- journal des tirs -----------------
+
+    /**
+     * Inscrit un tir de side (0 : joueur qui commence ou humain, 1 : l'autre
+     * ou l'IA) ; retourne son numéro de séquence.
+     */
+    synchronized int record(int side, int x, int y, byte[] result) {
+        if (eventCount == events.length) events = Arrays.copyOf(events, eventCount * 2);
+        events[eventCount++] = side << 30 | code(result) << 28 | x << 14 | y;
+        return eventCount;
+    }
+
+    synchronized int seq() {
+        return eventCount;
+    }
+
+    /** Tirs de numéro > seq, dans l'ordre. */
+    synchronized int[] eventsAfter(int seq) {
+        return Arrays.copyOfRange(events, Math.max(0, Math.min(seq, eventCount)), eventCount);
+    }
+
+    static int side(int event) {
+        return event >>> 30;
+    }
+
+    static int x(int event) {
+        return event >>> 14 & 0x3FFF;
+    }
+
+    static int y(int event) {
+        return event & 0x3FFF;
+    }
+
+    static byte[] result(int event) {
+        switch (event >>> 28 & 3) {
+            case 0: return Messages.MISS;
+            case 1: return Messages.HIT;
+            default: return Messages.SUNK;
+        }
+    }
+
+    private static int code(byte[] result) {
+        if (result == Messages.MISS) return 0;
+        if (result == Messages.HIT) return 1;
+        return 2;
+    }
+
+    /**
+     * Instantané vu par side : STATE|seq|size|mine|theirs|turn|over.
+     *
+     * Chaque plateau est codé sur 2 bits par case, ligne par ligne, 4 cases
+     * par octet (première case dans les bits de poids fort), en hexadécimal.
+     * mine : 0 eau, 1 bateau, 2 raté, 3 touché.
+     * theirs : 0 inconnu, 1 coulé, 2 raté, 3 touché.
+     * turn : YOU ou OPP, comme TURN ; over : 1 si la partie est terminée, sinon 0.
+     */
+    synchronized String snapshot(int side, int[][] mine, int[][] theirs, boolean myTurn, boolean over) {
+        int size = mine.length;
+        byte[] a = new byte[(size * size + 3) / 4];
+        byte[] b = new byte[a.length];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int m = mine[x][y], t = theirs[x][y];
+                pack(a, x * size + y, m == 1 ? 1 : m == -1 ? 2 : m == 2 ? 3 : 0);
+                pack(b, x * size + y, t == -1 ? 2 : t == 2 ? 3 : 0);
+            }
+        }
+        for (int i = 0; i < eventCount; i++) {
+            int e = events[i];
+            if (side(e) == side && result(e) == Messages.SUNK) {
+                int cell = x(e) * size + y(e);
+                b[cell / 4] &= ~(3 << 6 - 2 * (cell % 4));
+                pack(b, cell, 1);
+            }
+        }
+        return "STATE|" + eventCount + "|" + size + "|" + hex(a) + "|" + hex(b)
+                + (myTurn ? "|YOU|" : "|OPP|") + (over ? 1 : 0);
+    }
+
+    private static void pack(byte[] dst, int cell, int code) {
+        dst[cell / 4] |= code << 6 - 2 * (cell % 4);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte v : bytes) {
+            sb.append(Character.forDigit(v >> 4 & 0xF, 16)).append(Character.forDigit(v & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static boolean fits(int[][] g, int x, int y, int len, boolean h) {
+        int size = g.length;
+        if (h ? y + len > size : x + len > size) return false;
+        for (int i = 0; i < len; i++) {
+            if ((h ? g[x][y + i] : g[x + i][y]) != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package server;
+
+import protocol.Messages;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classements global (Elo) et du jour (victoires JvJ depuis minuit UTC).
+ *
+ * Les classements sont mis à jour au fil des résultats par le thread
+ * d'écriture du PlayerStore (un seul écrivain). Après chaque modification
+ * du top-K, la trame LEADERBOARD|... est réencodée et publiée dans un champ
+ * volatile : servir le classement est une simple lecture, sans verrou.
+ */
+final class Leaderboard implements PlayerStore.Listener {
+
+    static final int TOP_K = 10;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private final Ranking global = new Ranking("GLOBAL");
+    private volatile Ranking daily = new Ranking("DAY", today());
+    private final byte[] emptyDaily = Messages.encode("LEADERBOARD|DAY|");
+
+    Leaderboard(PlayerStore store) {
+        store.forEachProfile(p -> global.update(p.pseudo, p.rating, p.wins, p.losses));
+        store.addListener(this);
+    }
+
+    /** Trame LEADERBOARD|GLOBAL|... prête à envoyer. */
+    byte[] globalFrame() {
+        return global.frame;
+    }
+
+    /** Trame LEADERBOARD|DAY|... prête à envoyer. */
+    byte[] dailyFrame() {
+        Ranking d = daily;
+        return d.day == today() ? d.frame : emptyDaily;
+    }
+
+    @Override
+    public void resultApplied(MatchResult result, PlayerProfile winner, PlayerProfile loser) {
+        if (winner != null) global.update(winner.pseudo, winner.rating, winner.wins, winner.losses);
+        if (loser != null) global.update(loser.pseudo, loser.rating, loser.wins, loser.losses);
+        if (result.vsIA) return;
+
+        long day = result.timestamp / DAY_MS;
+        Ranking d = daily;
+        if (d.day != day) {
+            if (day < d.day) return; // résultat de la veille arrivé après minuit
+            d = new Ranking("DAY", day);
+            daily = d;
+        }
+        d.addResult(result.winner, true);
+        d.addResult(result.loser, false);
+    }
+
+    private static long today() {
+        return System.currentTimeMillis() / DAY_MS;
+    }
+
+    /** Une ligne du classement ; triée par score décroissant puis pseudo. */
+    private static final class Entry implements Comparable<Entry> {
+        final String pseudo;
+        final int score;
+        final int wins;
+        final int losses;
+
+        Entry(String pseudo, int score, int wins, int losses) {
+            this.pseudo = pseudo;
+            this.score = score;
+            this.wins = wins;
+            this.losses = losses;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            if (score != o.score) return Integer.compare(o.score, score);
+            return pseudo.compareTo(o.pseudo);
+        }
+    }
+
+    /**
+     * Un classement trié en continu. Modifié uniquement par le thread
+     * d'écriture ; seul le champ frame est lu par les autres threads.
+     */
+    private static final class Ranking {
+        final String name;
+        final long day;
+        private final ConcurrentSkipListSet<Entry> sorted = new ConcurrentSkipListSet<>();
+        private final Map<String, Entry> byPseudo = new HashMap<>();
+        // dernière entrée du top-K publié, null tant que le top n'est pas plein
+        private Entry kth;
+        volatile byte[] frame;
+
+        Ranking(String name) {
+            this(name, 0);
+        }
+
+        Ranking(String name, long day) {
+            this.name = name;
+            this.day = day;
+            publish();
+        }
+
+        void addResult(String pseudo, boolean win) {
+            Entry e = byPseudo.get(pseudo);
+            int wins = e == null ? 0 : e.wins;
+            int losses = e == null ? 0 : e.losses;
+            if (win) wins++;
+            else losses++;
+            update(pseudo, wins, wins, losses);
+        }
+
+        void update(String pseudo, int score, int wins, int losses) {
+            Entry e = new Entry(pseudo, score, wins, losses);
+            Entry old = byPseudo.put(pseudo, e);
+            if (old != null) sorted.remove(old);
+            sorted.add(e);
+
+            // on ne réencode que si le top-K visible change
+            boolean touchesTop = kth == null
+                    || e.compareTo(kth) <= 0
+                    || (old != null && old.compareTo(kth) <= 0);
+            if (touchesTop) publish();
+        }
+
+        private void publish() {
+            StringBuilder sb = new StringBuilder(32 + TOP_K * 24);
+            sb.append("LEADERBOARD|").append(name).append('|');
+            int rank = 0;
+            Entry last = null;
+            for (Entry e : sorted) {
+                if (rank == TOP_K) break;
+                if (rank > 0) sb.append(';');
+                rank++;
+                // pseudo sans ':' ni ';' (Messages.validPseudo, vérifié à la connexion)
+                sb.append(rank).append(':').append(e.pseudo).append(':').append(e.score)
+                        .append(':').append(e.wins).append(':').append(e.losses);
+                last = e;
+            }
+            kth = rank == TOP_K ? last : null;
+            frame = Messages.encode(sb.toString());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package server;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal du serveur, asynchrone et structuré.
+ *
+ * Un appel ne fait que réserver une case d'un anneau préalloué et y recopier
+ * des références : pas de formatage, pas d'E/S, pas de verrou dans les
+ * threads de jeu. Un seul thread d'écriture formate les lignes
+ *
+ *   2026-01-01T12:00:00.000Z INFO game_end conn=3 player=alice game=17 result=WIN
+ *
+ * et les écrit dans logs/server.log (rotation par taille, bn.log.dir,
+ * bn.log.maxBytes) et, sauf bn.log.console=false, sur la console.
+ * Anneau plein : le message est abandonné et compté, l'appelant ne bloque pas.
+ */
+final class Log {
+
+    enum Level { INFO, WARN, ERROR }
+
+    private static final int CAPACITY = 8192; // puissance de 2
+    private static final int MASK = CAPACITY - 1;
+    private static final int KEEP_FILES = 5;
+    private static final long IDLE_PARK_NANOS = 100_000_000;
+
+    private static final Path DIR = Paths.get(System.getProperty("bn.log.dir", "logs"));
+    private static final long MAX_BYTES = Long.getLong("bn.log.maxBytes", 10L << 20);
+    private static final boolean CONSOLE = !"false".equals(System.getProperty("bn.log.console"));
+
+    /** Case de l'anneau ; seq = index + 1 une fois remplie. */
+    private static final class Slot {
+        volatile long seq;
+        long time;
+        Level level;
+        String event;
+        long game;
+        int conn;
+        String player;
+        String detail;
+        Throwable error;
+    }
+
+    /** Contexte d'une connexion : chaque ligne porte sa connexion, son joueur et sa partie. */
+    static final class Context {
+        final int conn;
+        volatile String player;
+        volatile long game = -1;
+
+        Context(int conn) {
+            this.conn = conn;
+        }
+
+        void info(String event, String detail) {
+            log(Level.INFO, event, game, conn, player, detail, null);
+        }
+
+        void warn(String event, String detail) {
+            log(Level.WARN, event, game, conn, player, detail, null);
+        }
+
+        void error(String event, String detail, Throwable t) {
+            log(Level.ERROR, event, game, conn, player, detail, t);
+        }
+    }
+
+    private static final Slot[] ring = new Slot[CAPACITY];
+    private static final AtomicLong head = new AtomicLong(); // prochaine case à réserver
+    private static volatile long tail = 0;                   // prochaine case à écrire
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile boolean running = true;
+    // le thread d'écriture est (ou va être) garé : le prochain message le réveille
+    private static volatile boolean waiting;
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) ring[i] = new Slot();
+        writer = new Thread(Log::writeLoop, "LogWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private Log() {}
+
+    static void info(String event, String detail) {
+        log(Level.INFO, event, -1, -1, null, detail, null);
+    }
+
+    static void warn(String event, String detail) {
+        log(Level.WARN, event, -1, -1, null, detail, null);
+    }
+
+    static void error(String event, String detail, Throwable t) {
+        log(Level.ERROR, event, -1, -1, null, detail, t);
+    }
+
+    /** Messages abandonnés depuis le démarrage (anneau plein). */
+    static long dropped() {
+        return dropped.sum();
+    }
+
+    private static void log(Level level, String event, long game, int conn, String player,
+                            String detail, Throwable error) {
+        long h;
+        do {
+            h = head.get();
+            if (h - tail >= CAPACITY || !running) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(h, h + 1));
+
+        Slot s = ring[(int) (h & MASK)];
+        s.time = System.currentTimeMillis();
+        s.level = level;
+        s.event = event;
+        s.game = game;
+        s.conn = conn;
+        s.player = player;
+        s.detail = detail;
+        s.error = error;
+        s.seq = h + 1; // publie la case au thread d'écriture
+        if (waiting) LockSupport.unpark(writer);
+    }
+
+    /** Écrit ce qui reste dans l'anneau puis arrête le thread d'écriture. */
+    static void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(2000);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ----------------- thread d'écriture -----------------
+
+    private static Writer file;
+    private static long written;
+
+    private static void writeLoop() {
+        openFile();
+        StringBuilder sb = new StringBuilder(256);
+        long reportedDrops = 0;
+        int idle = 0;
+        boolean dirty = false;
+
+        while (running || tail < head.get()) {
+            long t = tail;
+            Slot s = ring[(int) (t & MASK)];
+            if (s.seq != t + 1) {
+                if (dirty) {
+                    flush();
+                    dirty = false;
+                }
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    sb.setLength(0);
+                    appendHeader(sb, System.currentTimeMillis(), Level.WARN, "log_dropped");
+                    sb.append(" total=").append(drops).append('\n');
+                    emit(sb);
+                    flush();
+                    reportedDrops = drops;
+                }
+                if (!running) {
+                    // arrêt demandé mais une case réservée n'arrive jamais : on n'attend pas indéfiniment
+                    if (++idle > 100) break;
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+                // waiting est levé avant de relire la case : soit on voit la publication,
+                // soit le producteur voit waiting et nous réveille. L'attente bornée ne sert
+                // que de filet (réveil perdu, pertes à signaler).
+                waiting = true;
+                if (s.seq != t + 1 && running) LockSupport.parkNanos(IDLE_PARK_NANOS);
+                waiting = false;
+                continue;
+            }
+            idle = 0;
+
+            sb.setLength(0);
+            format(sb, s);
+            s.event = s.player = s.detail = null;
+            s.error = null;
+            tail = t + 1; // libère la case
+            emit(sb);
+            dirty = true;
+        }
+        flush();
+        try {
+            if (file != null) file.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static void format(StringBuilder sb, Slot s) {
+        appendHeader(sb, s.time, s.level, s.event);
+        if (s.conn >= 0) sb.append(" conn=").append(s.conn);
+        if (s.player != null) {
+            sb.append(" player=");
+            appendValue(sb, s.player);
+        }
+        if (s.game >= 0) sb.append(" game=").append(s.game);
+        if (s.detail != null && !s.detail.isEmpty()) sb.append(' ').append(s.detail);
+        if (s.error != null) {
+            sb.append(" error=");
+            appendValue(sb, String.valueOf(s.error));
+            sb.append('\n');
+            for (StackTraceElement e : s.error.getStackTrace()) {
+                sb.append("\tat ").append(e).append('\n');
+            }
+        } else {
+            sb.append('\n');
+        }
+    }
+
+    private static void appendHeader(StringBuilder sb, long time, Level level, String event) {
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(time), sb);
+        sb.append(' ').append(level).append(' ').append(event);
+    }
+
+    /** Valeur entre guillemets si elle contient un espace, un guillemet ou un '='. */
+    private static void appendValue(StringBuilder sb, String v) {
+        boolean quote = v.isEmpty();
+        for (int i = 0; i < v.length() && !quote; i++) {
+            char c = v.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            sb.append(v);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\');
+            sb.append(c < ' ' ? ' ' : c);
+        }
+        sb.append('"');
+    }
+
+    private static void emit(StringBuilder sb) {
+        if (CONSOLE) System.out.append(sb);
+        if (file == null) return;
+        try {
+            file.append(sb);
+            written += sb.length();
+            if (written >= MAX_BYTES) roll();
+        } catch (IOException e) {
+            System.err.println("Journal : écriture impossible (" + e.getMessage() + "), console seule");
+            file = null;
+        }
+    }
+
+    private static void flush() {
+        if (CONSOLE) System.out.flush();
+        try {
+            if (file != null) file.flush();
+        } catch (IOException ignored) {}
+    }
+
+    // ----------------- fichiers -----------------
+
+    private static void openFile() {
+        try {
+            Files.createDirectories(DIR);
+            Path p = DIR.resolve("server.log");
+            written = Files.exists(p) ? Files.size(p) : 0;
+            file = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(p.toFile(), true), StandardCharsets.UTF_8), 1 << 16);
+        } catch (IOException e) {
+            System.err.println("Journal : " + DIR + " inaccessible (" + e.getMessage() + "), console seule");
+            file = null;
+        }
+    }
+
+    /** server.log -> server.log.1 -> ... -> server.log.KEEP_FILES (supprimé au tour suivant). */
+    private static void roll() throws IOException {
+        file.close();
+        file = null;
+        for (int i = KEEP_FILES - 1; i >= 1; i--) {
+            Path from = DIR.resolve("server.log." + i);
+            if (Files.exists(from)) {
+                Files.move(from, DIR.resolve("server.log." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(DIR.resolve("server.log"), DIR.resolve("server.log.1"), StandardCopyOption.REPLACE_EXISTING);
+        openFile();
+    }
+}
@@ -0,0 +1,39 @@
+package server;
+
+/**
+ * Résultat d'une partie terminée, tel qu'enregistré dans l'historique.
+ */
+final class MatchResult {
+
+    /** Nom utilisé pour l'adversaire dans une partie contre l'IA. */
+    static final String IA = "IA";
+
+    final String winner;
+    final String loser;
+    final boolean vsIA;
+    /** Contre l'IA : true si l'IA a gagné (le pseudo "IA" peut aussi être celui d'un joueur). */
+    final boolean iaWon;
+    /** Graine de la partie : avec la suite des tirs, elle suffit à la rejouer. */
+    final long seed;
+    final long timestamp;
+
+    /** Partie JvJ ou de tournoi. */
+    MatchResult(String winner, String loser, long seed) {
+        this(winner, loser, false, false, seed);
+    }
+
+    /** Partie contre l'IA : seul human a un profil. */
+    static MatchResult againstIA(String human, boolean humanWon, long seed) {
+        return humanWon ? new MatchResult(human, IA, true, false, seed)
+                : new MatchResult(IA, human, true, true, seed);
+    }
+
+    private MatchResult(String winner, String loser, boolean vsIA, boolean iaWon, long seed) {
+        this.winner = winner;
+        this.loser = loser;
+        this.vsIA = vsIA;
+        this.iaWon = iaWon;
+        this.seed = seed;
+        this.timestamp = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,341 @@
+package server;
+
+import protocol.Messages;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * IA "difficile" : tire sur la case la plus probable.
+ *
+ * À chaque coup, on tire au hasard des milliers de placements de la flotte
+ * restante compatibles avec ce que l'IA sait déjà (eau, touchés, coulés) et
+ * on compte, pour chaque case inconnue, combien de placements l'occupent.
+ * L'échantillonnage est réparti sur un ForkJoinPool ; chaque feuille a son
+ * propre générateur (split de celui de la partie) et réutilise le plateau de
+ * travail de son thread : aucune allocation par échantillon.
+ *
+ * Le nombre d'échantillons est fixe et l'arbre des tâches (donc le découpage
+ * du générateur) ne dépend que de lui : à graine égale, les mêmes coups, quelle
+ * que soit la charge de la machine, et la partie se rejoue à l'identique.
+ * L'échéance du coup n'est qu'un garde-fou : si elle coupe l'échantillonnage,
+ * c'est journalisé (ai_deadline), et ce coup-là n'est plus reproductible.
+ *
+ * Tant que tous ses tirs ont raté, l'IA joue les coups de l'{@link OpeningBook},
+ * communs à toutes les parties de même configuration.
+ */
+final class MonteCarloAI {
+
+    static final byte UNKNOWN = 0;
+    static final byte MISS = 1;
+    static final byte HIT = 2;
+    static final byte SUNK = 3;
+
+    private static final int SAMPLES = 20_000;
+    private static final int LEAF_SAMPLES = 1_000;
+    private static final int PLACEMENT_TRIES = 64;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("MonteCarloAI-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+
+    // plateau de travail réutilisé par chaque thread du pool
+    private static final ThreadLocal<int[]> SCRATCH = new ThreadLocal<>();
+
+    private final int size;
+    private final byte[] view;
+    private final SplittableRandom rng;
+    private final long budgetNanos;
+    private final int[] fleet;
+
+    // bateaux pas encore coulés (longueurs)
+    private int[] remaining;
+
+    // null : pas d'ouverture ; opening est chargée au premier coup
+    private final OpeningBook book;
+    private OpeningBook.Opening opening;
+    private boolean offBook = false;
+    // l'ouverture n'était pas encore calculée au premier coup : partie jouée sans livre
+    private boolean bookPending = false;
+    private int shots = 0;
+
+    MonteCarloAI(int size, int[] fleet, SplittableRandom rng, long budgetNanos, OpeningBook book) {
+        this.size = size;
+        this.view = new byte[size * size];
+        this.rng = rng;
+        this.budgetNanos = budgetNanos;
+        this.fleet = fleet.clone();
+        this.remaining = fleet.clone();
+        this.book = book;
+    }
+
+    /** Enregistre le résultat d'un tir de l'IA (Messages.MISS, HIT ou SUNK). */
+    void record(int x, int y, byte[] result) {
+        int cell = x * size + y;
+        if (opening == null || shots >= opening.moveCount() || result != Messages.MISS
+                || cell != opening.move(shots)) {
+            offBook = true;
+        }
+        shots++;
+        if (result == Messages.MISS) {
+            view[cell] = MISS;
+        } else if (result == Messages.HIT) {
+            view[cell] = HIT;
+        } else if (result == Messages.SUNK) {
+            view[cell] = HIT;
+            removeShip(markSunk(cell));
+        }
+    }
+
+    /** Case à viser (x * size + y). */
+    int nextShot() {
+        int move = bookMove();
+        if (move >= 0) return move;
+
+        int[] counts = density(SAMPLES, System.nanoTime() + budgetNanos);
+        int best = bestCell(counts);
+        if (best >= 0 && counts[best] > 0) return best;
+        return fallback(cellsWith(HIT));
+    }
+
+    /**
+     * Nombre de placements compatibles, parmi samples tirages, qui occupent
+     * chaque case. deadline (System.nanoTime) est un garde-fou : s'il coupe
+     * le tirage, le résultat dépend de la charge et c'est journalisé.
+     */
+    int[] density(int samples, long deadline) {
+        int[] r = POOL.invoke(new Sampler(this, cellsWith(HIT), samples, LEAF_SAMPLES, rng.split(), deadline));
+        return counted(r, samples);
+    }
+
+    /**
+     * Comme density, sur le thread appelant et sans échéance : pour les
+     * calculs de fond (ouvertures), qui ne doivent pas occuper le pool des
+     * coups en cours.
+     */
+    int[] densityHere(int samples) {
+        Sampler all = new Sampler(this, cellsWith(HIT), samples, samples, rng.split(), Long.MAX_VALUE);
+        return counted(all.compute(), samples);
+    }
+
+    private int[] counted(int[] r, int samples) {
+        // dernière case : nombre de tirages effectivement faits
+        int drawn = r[view.length];
+        if (drawn < samples) {
+            Log.warn("ai_deadline", "samples=" + drawn + "/" + samples + " shot=" + shots);
+        }
+        return Arrays.copyOf(r, view.length);
+    }
+
+    /**
+     * True si la partie se joue sans livre faute d'ouverture prête : à noter
+     * au journal pour pouvoir la rejouer (les coups diffèrent avec le livre).
+     */
+    boolean bookPending() {
+        return bookPending;
+    }
+
+    /** Case inconnue la plus souvent occupée, -1 s'il n'y en a plus. */
+    int bestCell(int[] counts) {
+        int best = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (view[i] == UNKNOWN && (best < 0 || counts[i] > counts[best])) best = i;
+        }
+        return best;
+    }
+
+    private int bookMove() {
+        if (book == null || offBook) return -1;
+        if (opening == null) {
+            opening = book.get(size, fleet);
+            if (opening == null) {
+                offBook = true;
+                bookPending = true;
+                return -1;
+            }
+        }
+        return shots < opening.moveCount() ? opening.move(shots) : -1;
+    }
+
+    // ----------------- connaissances -----------------
+
+    /** Passe en SUNK le groupe de cases touchées qui contient cell ; retourne sa taille. */
+    private int markSunk(int cell) {
+        int[] stack = new int[view.length];
+        int top = 0, n = 0;
+        stack[top++] = cell;
+        view[cell] = SUNK;
+        while (top > 0) {
+            int c = stack[--top];
+            n++;
+            int x = c / size, y = c % size;
+            if (x > 0 && view[c - size] == HIT) { view[c - size] = SUNK; stack[top++] = c - size; }
+            if (x < size - 1 && view[c + size] == HIT) { view[c + size] = SUNK; stack[top++] = c + size; }
+            if (y > 0 && view[c - 1] == HIT) { view[c - 1] = SUNK; stack[top++] = c - 1; }
+            if (y < size - 1 && view[c + 1] == HIT) { view[c + 1] = SUNK; stack[top++] = c + 1; }
+        }
+        return n;
+    }
+
+    private void removeShip(int len) {
+        if (remaining.length == 0) return;
+        int idx = 0;
+        for (int i = 0; i < remaining.length; i++) {
+            if (remaining[i] == len) { idx = i; break; }
+        }
+        int[] r = new int[remaining.length - 1];
+        System.arraycopy(remaining, 0, r, 0, idx);
+        System.arraycopy(remaining, idx + 1, r, idx, remaining.length - idx - 1);
+        remaining = r;
+    }
+
+    private int[] cellsWith(byte state) {
+        int n = 0;
+        for (byte v : view) if (v == state) n++;
+        int[] cells = new int[n];
+        n = 0;
+        for (int i = 0; i < view.length; i++) if (view[i] == state) cells[n++] = i;
+        return cells;
+    }
+
+    /**
+     * Aucun échantillon retenu : à côté d'un touché,
+     * sinon la case la plus dense de l'ouverture, sinon au hasard.
+     */
+    private int fallback(int[] hits) {
+        for (int c : hits) {
+            int x = c / size, y = c % size;
+            if (x > 0 && view[c - size] == UNKNOWN) return c - size;
+            if (x < size - 1 && view[c + size] == UNKNOWN) return c + size;
+            if (y > 0 && view[c - 1] == UNKNOWN) return c - 1;
+            if (y < size - 1 && view[c + 1] == UNKNOWN) return c + 1;
+        }
+        if (opening != null) {
+            int best = -1;
+            for (int i = 0; i < view.length; i++) {
+                if (view[i] == UNKNOWN && (best < 0 || opening.density(i) > opening.density(best))) best = i;
+            }
+            if (best >= 0) return best;
+        }
+        int unknown = 0;
+        for (byte v : view) if (v == UNKNOWN) unknown++;
+        int pick = rng.nextInt(Math.max(1, unknown));
+        for (int i = 0; i < view.length; i++) {
+            if (view[i] == UNKNOWN && pick-- == 0) return i;
+        }
+        return 0;
+    }
+
+    // ----------------- échantillonnage -----------------
+
+    private static final class Sampler extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final MonteCarloAI ai;
+        private final int[] hits;
+        private final int samples;
+        // au-delà, la tâche est coupée en deux
+        private final int leaf;
+        private final SplittableRandom rng;
+        private final long deadline;
+
+        Sampler(MonteCarloAI ai, int[] hits, int samples, int leaf, SplittableRandom rng, long deadline) {
+            this.ai = ai;
+            this.hits = hits;
+            this.samples = samples;
+            this.leaf = leaf;
+            this.rng = rng;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (samples > leaf) {
+                int half = samples / 2;
+                Sampler left = new Sampler(ai, hits, half, leaf, rng.split(), deadline);
+                Sampler right = new Sampler(ai, hits, samples - half, leaf, rng.split(), deadline);
+                left.fork();
+                int[] r = right.compute();
+                int[] l = left.join();
+                for (int i = 0; i < r.length; i++) r[i] += l[i];
+                return r;
+            }
+            return sampleLeaf();
+        }
+
+        /** Compte par case, puis le nombre de tirages faits avant l'échéance. */
+        private int[] sampleLeaf() {
+            int cells = ai.view.length;
+            int[] counts = new int[cells + 1];
+            int[] occ = SCRATCH.get();
+            if (occ == null || occ.length != cells) {
+                occ = new int[cells];
+                SCRATCH.set(occ);
+            }
+            int s = 0;
+            for (; s < samples; s++) {
+                if ((s & 63) == 0 && System.nanoTime() > deadline) break;
+                Arrays.fill(occ, 0);
+                if (!placeFleet(occ)) continue;
+                for (int i = 0; i < cells; i++) {
+                    if (occ[i] != 0 && ai.view[i] == MonteCarloAI.UNKNOWN) counts[i]++;
+                }
+            }
+            counts[cells] = s;
+            return counts;
+        }
+
+        /** Place la flotte restante dans occ ; false si l'échantillon est rejeté. */
+        private boolean placeFleet(int[] occ) {
+            int[] fleet = ai.remaining;
+            for (int k = 0; k < fleet.length; k++) {
+                // le premier bateau passe par un touché : sans ça presque tout serait rejeté
+                int anchor = k == 0 && hits.length > 0 ? hits[rng.nextInt(hits.length)] : -1;
+                if (!placeShip(occ, fleet[k], anchor, k + 1)) return false;
+            }
+            for (int h : hits) {
+                if (occ[h] == 0) return false;
+            }
+            return true;
+        }
+
+        private boolean placeShip(int[] occ, int len, int anchor, int mark) {
+            int size = ai.size;
+            for (int t = 0; t < PLACEMENT_TRIES; t++) {
+                boolean h = rng.nextBoolean();
+                int x, y;
+                if (anchor >= 0) {
+                    int off = rng.nextInt(len);
+                    x = anchor / size - (h ? 0 : off);
+                    y = anchor % size - (h ? off : 0);
+                } else {
+                    x = rng.nextInt(size);
+                    y = rng.nextInt(size);
+                }
+                if (x < 0 || y < 0 || (h ? y + len > size : x + len > size)) continue;
+                if (!free(occ, x, y, len, h)) continue;
+                for (int i = 0; i < len; i++) {
+                    occ[h ? x * size + y + i : (x + i) * size + y] = mark;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private boolean free(int[] occ, int x, int y, int len, boolean h) {
+            int size = ai.size;
+            for (int i = 0; i < len; i++) {
+                int c = h ? x * size + y + i : (x + i) * size + y;
+                byte v = ai.view[c];
+                if (occ[c] != 0 || v == MonteCarloAI.MISS || v == MonteCarloAI.SUNK) return false;
+            }
+            return true;
+        }
+    }
+}
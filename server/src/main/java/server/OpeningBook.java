@@ -0,0 +1,214 @@
+package server;
+
+import protocol.Messages;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Ouvertures de l'IA difficile, par configuration (taille, flotte).
+ *
+ * Tant que l'IA n'a fait que des ratés, ses coups ne dépendent que de la
+ * taille de la grille et de la flotte : on les calcule une fois (carte de
+ * densité de la grille vide + suite des N premiers coups si tout rate) et
+ * toutes les parties les partagent en lecture seule.
+ *
+ * Les ouvertures sont calculées en arrière-plan, au premier usage, sur
+ * l'executor partagé du serveur (un seul thread, pas le pool des coups en
+ * cours), avec une graine fixe et sans limite de temps, puis ajoutées à
+ * openings.tsv :
+ * "size\tfleet\tmoves\tdensity" (listes séparées par des virgules), relu au
+ * démarrage. Les configurations peu utilisées sont évincées (LRU). Un coup
+ * n'attend jamais le livre : tant que l'ouverture n'est pas prête, get()
+ * retourne null et l'IA échantillonne comme au milieu de partie.
+ */
+final class OpeningBook {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final int MAX_MOVES = 8;
+    private static final int SAMPLES = 200_000;
+    private static final long SEED = 0x0BA7A111EL;
+
+    /** Ouverture d'une configuration ; immuable. */
+    static final class Opening {
+        final int size;
+        private final int[] fleet;
+        private final int[] moves;
+        private final int[] density;
+
+        Opening(int size, int[] fleet, int[] moves, int[] density) {
+            this.size = size;
+            this.fleet = fleet;
+            this.moves = moves;
+            this.density = density;
+        }
+
+        int moveCount() {
+            return moves.length;
+        }
+
+        /** k-ième coup (x * size + y) si les k précédents ont tous raté. */
+        int move(int k) {
+            return moves[k];
+        }
+
+        /** Nombre de placements échantillonnés qui occupent la case, grille vide. */
+        int density(int cell) {
+            return density[cell];
+        }
+    }
+
+    private final Path file;
+    private final Executor background;
+    private final Map<String, FutureTask<Opening>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FutureTask<Opening>> e) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private OpeningBook(Path file, Executor background) {
+        this.file = file;
+        this.background = background;
+    }
+
+    /**
+     * Charge les ouvertures déjà calculées ; file peut ne pas exister. Les
+     * ouvertures manquantes seront calculées sur background.
+     */
+    static OpeningBook load(Path file, Executor background) {
+        OpeningBook book = new OpeningBook(file, background);
+        if (!Files.exists(file)) return book;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                Opening o = parse(line);
+                if (o != null) book.put(o);
+            }
+        } catch (IOException e) {
+            Log.error("openings_load_failed", "file=" + file, e);
+        }
+        return book;
+    }
+
+    /**
+     * Ouverture de la configuration si elle est prête, sinon null ; le
+     * premier appel lance son calcul en arrière-plan. Ne bloque jamais.
+     */
+    Opening get(int size, int[] fleet) {
+        String key = key(size, fleet);
+        FutureTask<Opening> task;
+        boolean mine = false;
+        synchronized (entries) {
+            task = entries.get(key);
+            if (task == null) {
+                task = new FutureTask<>(() -> compute(size, fleet.clone()));
+                entries.put(key, task);
+                mine = true;
+            }
+        }
+        if (mine) {
+            FutureTask<Opening> t = task;
+            background.execute(() -> {
+                t.run();
+                append(t);
+            });
+        }
+        return task.isDone() ? done(task) : null;
+    }
+
+    private static Opening done(Future<Opening> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.error("openings_compute_failed", null, e.getCause());
+            return null;
+        }
+    }
+
+    private void put(Opening o) {
+        FutureTask<Opening> done = new FutureTask<>(() -> o);
+        done.run();
+        synchronized (entries) {
+            entries.put(key(o.size, o.fleet), done);
+        }
+    }
+
+    private static String key(int size, int[] fleet) {
+        return size + ":" + join(fleet);
+    }
+
+    // ----------------- calcul -----------------
+
+    private static Opening compute(int size, int[] fleet) {
+        // graine fixe et pas d'échéance : même ouverture à chaque calcul
+        MonteCarloAI ai = new MonteCarloAI(size, fleet, new SplittableRandom(SEED), Long.MAX_VALUE, null);
+        int n = Math.min(MAX_MOVES, size * size / 4);
+        int[] moves = new int[n];
+        int[] density = null;
+        for (int k = 0; k < n; k++) {
+            int[] counts = ai.densityHere(SAMPLES);
+            if (k == 0) density = counts;
+            moves[k] = ai.bestCell(counts);
+            ai.record(moves[k] / size, moves[k] % size, Messages.MISS);
+        }
+        if (density == null) density = new int[size * size];
+        return new Opening(size, fleet, moves, density);
+    }
+
+    // ----------------- fichier -----------------
+
+    private synchronized void append(FutureTask<Opening> task) {
+        Opening o = done(task);
+        if (o == null) return;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(o.size + "\t" + join(o.fleet) + "\t" + join(o.moves) + "\t" + join(o.density));
+            w.newLine();
+        } catch (IOException e) {
+            Log.error("openings_save_failed", "file=" + file, e);
+        }
+    }
+
+    private static Opening parse(String line) {
+        String[] f = line.split("\t");
+        if (f.length != 4) return null;
+        try {
+            int size = Integer.parseInt(f[0]);
+            int[] fleet = ints(f[1]);
+            int[] moves = ints(f[2]);
+            int[] density = ints(f[3]);
+            if (density.length != size * size) return null;
+            for (int m : moves) if (m < 0 || m >= size * size) return null;
+            return new Opening(size, fleet, moves, density);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int[] ints(String s) {
+        if (s.isEmpty()) return new int[0];
+        String[] parts = s.split(",");
+        int[] v = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) v[i] = Integer.parseInt(parts[i]);
+        return v;
+    }
+
+    private static String join(int[] v) {
+        StringBuilder sb = new StringBuilder(v.length * 4);
+        for (int i = 0; i < v.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(v[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package server;
+
+/**
+ * Profil persistant d'un joueur : victoires, défaites et classement Elo.
+ * Immuable : chaque résultat enregistré produit un nouveau profil.
+ */
+final class PlayerProfile {
+
+    static final int INITIAL_RATING = 1200;
+    private static final int ELO_K = 32;
+
+    final String pseudo;
+    final int wins;
+    final int losses;
+    final int rating;
+
+    PlayerProfile(String pseudo, int wins, int losses, int rating) {
+        this.pseudo = pseudo;
+        this.wins = wins;
+        this.losses = losses;
+        this.rating = rating;
+    }
+
+    static PlayerProfile newPlayer(String pseudo) {
+        return new PlayerProfile(pseudo, 0, 0, INITIAL_RATING);
+    }
+
+    PlayerProfile withWin(int ratingDelta) {
+        return new PlayerProfile(pseudo, wins + 1, losses, rating + ratingDelta);
+    }
+
+    PlayerProfile withLoss(int ratingDelta) {
+        return new PlayerProfile(pseudo, wins, losses + 1, rating - ratingDelta);
+    }
+
+    /** Points Elo gagnés par winner (et perdus par loser). */
+    static int eloDelta(PlayerProfile winner, PlayerProfile loser) {
+        double expected = 1.0 / (1.0 + Math.pow(10, (loser.rating - winner.rating) / 400.0));
+        return (int) Math.round(ELO_K * (1.0 - expected));
+    }
+
+    @Override
+    public String toString() {
+        return pseudo + " (" + wins + "V/" + losses + "D, " + rating + ")";
+    }
+}
@@ -0,0 +1,34 @@
+package server;
+
+/**
+ * Stockage des profils joueurs et de l'historique des parties.
+ */
+interface PlayerStore extends AutoCloseable {
+
+    /** Profil du joueur, ou null s'il n'a encore jamais terminé de partie. */
+    PlayerProfile find(String pseudo);
+
+    /**
+     * Enregistre le résultat d'une partie. Ne bloque jamais l'appelant :
+     * l'écriture est faite plus tard, par lot.
+     */
+    void recordResult(MatchResult result);
+
+    /** Parcourt tous les profils connus (au démarrage, pour initialiser le classement). */
+    void forEachProfile(java.util.function.Consumer<PlayerProfile> action);
+
+    /** Abonne un listener appelé après l'application de chaque résultat. */
+    void addListener(Listener listener);
+
+    /** Écrit les résultats en attente puis libère les fichiers. */
+    @Override
+    void close();
+
+    /**
+     * Notifié par le thread d'écriture, donc toujours depuis un seul thread.
+     * winner ou loser vaut null pour le côté IA d'une partie contre l'IA.
+     */
+    interface Listener {
+        void resultApplied(MatchResult result, PlayerProfile winner, PlayerProfile loser);
+    }
+}
@@ -0,0 +1,952 @@
+package server;
+
+import protocol.Messages;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Server {
+
+    private static final int PORT = 1234;
+    private static final int SIZE = 4;
+
+    private static final List<ClientHandler> waitingPlayers = new ArrayList<>();
+    private static final AtomicInteger connectionCount = new AtomicInteger();
+    // connexions ouvertes, pour l'administration et l'arrêt
+    private static final Set<ClientHandler> connections = ConcurrentHashMap.newKeySet();
+
+    private static PlayerStore players;
+    private static Leaderboard leaderboard;
+    private static OpeningBook openings;
+
+    // connexions, lancement des parties de tournoi et envoi du chat
+    private static final ExecutorService executor = Executors.newCachedThreadPool();
+    private static final ChatService chat = new ChatService(executor);
+    // échéances des rondes de tournoi, rien d'autre ne tourne sur ce thread
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "TournamentDeadlines");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final int TOURNAMENT_SIZE = Integer.getInteger("bn.tournament.size", 8);
+    private static final Tournament.Format TOURNAMENT_FORMAT =
+            Tournament.Format.valueOf(System.getProperty("bn.tournament.format", "KNOCKOUT"));
+    private static final long TOURNAMENT_ROUND_MS = Long.getLong("bn.tournament.roundSeconds", 300) * 1000;
+    private static int tournamentCount = 0;
+
+    // garde-fou du temps de calcul d'un coup de l'IA difficile (son nombre d'échantillons est fixe)
+    private static final long AI_BUDGET_NANOS = Long.getLong("bn.ai.budgetMs", 100) * 1_000_000;
+    private static Tournament openTournament;
+
+    // mode drain : plus de nouvelle partie, arrêt quand les parties en cours sont finies
+    private static volatile boolean draining = false;
+    private static volatile ServerSocket gameSocket;
+    private static final long DRAIN_TIMEOUT_MS = Long.getLong("bn.drain.timeoutSeconds", 600) * 1000;
+
+    public static void main(String[] args) {
+        Log.info("server_start", "port=" + PORT);
+        Path dataDir = Paths.get(System.getProperty("bn.data", "data"));
+        try {
+            players = FilePlayerStore.open(dataDir);
+        } catch (IOException e) {
+            Log.error("store_open_failed", "dir=" + dataDir, e);
+            Log.close();
+            return;
+        }
+        init(players, OpeningBook.load(dataDir.resolve("openings.tsv"), executor));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            players.close();
+            Log.close();
+        }, "ServerShutdown"));
+
+        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+            gameSocket = serverSocket;
+            Admin.start();
+            while (!draining) {
+                Socket socket = serverSocket.accept();
+                ClientHandler handler = new ClientHandler(socket);
+                Events.ConnectionAccept accepted = new Events.ConnectionAccept();
+                if (accepted.shouldCommit()) {
+                    accepted.conn = handler.log.conn;
+                    accepted.remote = String.valueOf(socket.getRemoteSocketAddress());
+                    accepted.commit();
+                }
+                executor.execute(handler);
+            }
+        } catch (IOException e) {
+            if (draining) Log.info("accept_stopped", "port=" + PORT);
+            else Log.error("accept_failed", "port=" + PORT, e);
+        }
+    }
+
+    /** Stockage et livre d'ouvertures ; appelé par main, ou par un banc d'essai en mémoire. */
+    static void init(PlayerStore store, OpeningBook book) {
+        players = store;
+        openings = book;
+        leaderboard = new Leaderboard(store);
+    }
+
+    static Collection<ClientHandler> connections() {
+        return connections;
+    }
+
+    static boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Passe en mode drain : le port de jeu est fermé (une nouvelle instance
+     * peut le reprendre aussitôt), les joueurs sans partie sont renvoyés et
+     * plus aucune partie ne commence. Le thread "Drain" attend la fin des
+     * parties en cours (au plus bn.drain.timeoutSeconds) puis arrête le
+     * serveur ; le hook d'arrêt écrit les résultats en attente. Une partie
+     * encore en cours à l'échéance est interrompue sans résultat : ses
+     * plateaux sont écrits dans le journal (game_unfinished).
+     */
+    static void drain() {
+        synchronized (Server.class) {
+            if (draining) return;
+            draining = true;
+        }
+        Log.info("drain_start", "games=" + Admin.activeGames().size());
+        try {
+            ServerSocket s = gameSocket;
+            if (s != null) s.close();
+        } catch (IOException ignored) {}
+
+        List<ClientHandler> idle = new ArrayList<>();
+        synchronized (waitingPlayers) {
+            idle.addAll(waitingPlayers);
+            waitingPlayers.clear();
+        }
+        synchronized (Server.class) {
+            if (openTournament != null) idle.addAll(openTournament.cancel());
+        }
+        for (ClientHandler h : idle) h.kick("MSG|Serveur en maintenance, reconnectez-vous plus tard.");
+
+        Thread t = new Thread(Server::awaitGamesThenExit, "Drain");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void awaitGamesThenExit() {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        int games;
+        while ((games = Admin.activeGames().size()) > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        Log.info("drain_done", "unfinished=" + games);
+        for (List<ClientHandler> players : Admin.activeGames().values()) {
+            for (ClientHandler h : players) {
+                Game g = h.game;
+                // terminée pour la déconnexion qui suit : ni abandon ni résultat
+                synchronized (g) {
+                    h.gameOver = true;
+                }
+                String state = g.snapshot(h.side, h.myGrid, h.enemyGrid, h.myTurn, false);
+                h.log.warn("game_unfinished", "mode=" + h.modeName() + " state=" + state);
+                h.send("MSG|Arrêt du serveur : partie interrompue, elle ne compte pas au classement.");
+            }
+        }
+        for (ClientHandler h : connections) h.kick("MSG|Arrêt du serveur.");
+        System.exit(0);
+    }
+
+    /**
+     * Tournoi ouvert aux inscriptions ; un nouveau est créé dès que le
+     * précédent démarre. null en drain : drain() a annulé le tournoi ouvert.
+     */
+    private static synchronized Tournament openTournament() {
+        if (draining) return null;
+        if (openTournament == null || openTournament.isStarted()) {
+            openTournament = new Tournament(++tournamentCount, TOURNAMENT_SIZE, TOURNAMENT_FORMAT,
+                    TOURNAMENT_ROUND_MS, executor, scheduler, chat);
+        }
+        return openTournament;
+    }
+
+    /**
+     * Lance une partie entre deux joueurs ; first commence.
+     * match est non null pour une partie de tournoi : rien n'est lancé si le
+     * match est déjà tranché (échéance passée avant le lancement), et un
+     * joueur déjà parti perd par forfait, sans attendre l'échéance.
+     */
+    static void startMatch(ClientHandler first, ClientHandler second, Tournament.Match match) {
+        Game game = Game.create();
+        if (match == null) {
+            setUp(first, second, game, null);
+        } else {
+            ClientHandler byForfeit = null;
+            // même verrou que endByDecision : la partie est lancée ou tranchée, pas les deux
+            synchronized (match) {
+                if (first.disconnected || second.disconnected) {
+                    byForfeit = first.disconnected ? second : first;
+                    if (!match.decide(byForfeit)) return;
+                } else if (!first.resetForMatch(match) || !second.resetForMatch(match)) {
+                    return;
+                } else {
+                    match.game = game;
+                    setUp(first, second, game, match);
+                }
+            }
+            if (byForfeit != null) {
+                walkover(match, byForfeit);
+                return;
+            }
+        }
+
+        String detail = (match != null ? "mode=tournoi" : "mode=jvj") + " seed=" + Long.toHexString(game.seed);
+        first.endWait(true);
+        second.endWait(true);
+        first.log.game = game.id;
+        second.log.game = game.id;
+        first.log.info("game_start", detail);
+        second.log.info("game_start", detail);
+
+        first.send("MSG|Adversaire trouvé : " + second.pseudo);
+        second.send("MSG|Adversaire trouvé : " + first.pseudo);
+
+        first.send(Messages.START);
+        second.send(Messages.START);
+        first.sendSeq(Messages.TURN_YOU, 0);
+        second.sendSeq(Messages.TURN_OPP, 0);
+    }
+
+    /** État de la partie des deux joueurs, avant toute annonce. */
+    private static void setUp(ClientHandler first, ClientHandler second, Game game, Tournament.Match match) {
+        game.placeFleets(first.myGrid, second.myGrid);
+        first.game = game;
+        second.game = game;
+
+        first.opponent = second;
+        second.opponent = first;
+
+        ChatService.Channel channel = chat.openGame();
+        first.gameChat = channel;
+        second.gameChat = channel;
+        chat.join(channel, first, false);
+        chat.join(channel, second, false);
+        if (match != null) match.channel = channel;
+
+        first.enemyGrid = second.myGrid;
+        second.enemyGrid = first.myGrid;
+        first.side = 0;
+        second.side = 1;
+        first.myTurn = true;
+        second.myTurn = false;
+    }
+
+    /** Forfait au lancement : le joueur resté connecté gagne le match sans jouer. */
+    private static void walkover(Tournament.Match m, ClientHandler winner) {
+        ClientHandler loser = winner == m.a ? m.b : m.a;
+        if (!winner.disconnected) winner.send("MSG|" + loser.pseudo + " est parti : victoire par forfait");
+        winner.log.info("game_end", "result=WIN decision=forfeit");
+        m.finish();
+    }
+
+    /**
+     * Échéance de tournoi : la partie est arbitrée aux touches, le premier
+     * joueur en cas d'égalité. Sans effet si la partie vient de se terminer
+     * autrement (dernier tir, abandon) : le vainqueur du match est fixé une
+     * seule fois, sous le verrou de la partie. note : "MSG|..." envoyé avant
+     * END, complété par le verdict.
+     */
+    static void endByDecision(Tournament.Match m, String note) {
+        ClientHandler winner, loser;
+        Game g;
+        synchronized (m) {
+            // null : partie pas encore lancée, startMatch ne la lancera plus une fois le match tranché
+            g = m.game;
+            synchronized (g != null ? g : m) {
+                if (g != null) winner = m.b.hitsScored() > m.a.hitsScored() ? m.b : m.a;
+                else winner = m.a.disconnected ? m.b : m.a;
+                if (!m.decide(winner)) return;
+                loser = winner == m.a ? m.b : m.a;
+                if (g != null) {
+                    winner.gameOver = true;
+                    loser.gameOver = true;
+                }
+            }
+        }
+        winner.send(note + ", victoire aux points");
+        loser.send(note + ", défaite aux points");
+        if (g != null) {
+            winner.sendSeq(Messages.END_WIN, g.seq());
+            loser.sendSeq(Messages.END_LOSE, g.seq());
+            Events.gameEnded(g, winner.modeName(), "DEADLINE", winner.pseudo, loser.pseudo);
+            players.recordResult(new MatchResult(winner.pseudo, loser.pseudo, g.seed));
+        }
+        winner.log.info("game_end", "result=WIN decision=deadline");
+        loser.log.info("game_end", "result=LOSE decision=deadline");
+        m.finish();
+    }
+
+    static class ClientHandler implements Runnable {
+        private final Socket socket;
+        private final Log.Context log = new Log.Context(connectionCount.incrementAndGet());
+        private BufferedReader in;
+        private OutputStream out;
+        // tampon de sortie pour les trames formatées (protégé par le verrou de send)
+        private final byte[] frameBuf = new byte[Messages.MAX_FRAME];
+
+        private String pseudo;
+        private Game game;
+        private ClientHandler opponent;
+        private IAHandler ia;
+        private boolean vsIA = false;
+        private boolean myTurn = false;
+        private boolean gameOver = false;
+        private volatile boolean disconnected = false;
+
+        private Tournament tournament;
+        private Tournament.Match match;
+        // non null tant que le joueur attend un adversaire (protégé par waitingPlayers)
+        private Events.MatchmakingWait waiting;
+
+        private final ChatService.Quota chatQuota = new ChatService.Quota();
+        private final ChatService.Outbox chatOut = new ChatService.Outbox();
+        // canal de la partie JvJ en cours ou de la dernière, null contre l'IA
+        private ChatService.Channel gameChat;
+
+        private final int[][] myGrid = new int[SIZE][SIZE];
+        private int[][] enemyGrid;
+        // 0 : joueur qui commence (ou contre l'IA), 1 : son adversaire ; voir Game.record
+        private int side;
+
+        public ClientHandler(Socket s) {
+            this.socket = s;
+        }
+
+        /** Connexion sans socket, pour jouer des parties en mémoire (banc d'essai). */
+        ClientHandler(String pseudo, OutputStream out) {
+            this.socket = null;
+            this.pseudo = pseudo;
+            this.out = out;
+            log.player = pseudo;
+        }
+
+        @Override
+        public void run() {
+            Events.Handshake handshake = new Events.Handshake();
+            handshake.begin();
+            connections.add(this);
+            try {
+                in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                out = new BufferedOutputStream(socket.getOutputStream());
+                log.info("connect", "remote=" + socket.getRemoteSocketAddress());
+
+                send("MSG|Entrez votre pseudo :");
+                String name;
+                while (true) {
+                    String raw = in.readLine();
+                    if (raw == null) return;
+                    name = cleanPseudo(raw);
+                    if (Messages.validPseudo(name)) break;
+                    send(Messages.ERR_PSEUDO);
+                }
+                pseudo = name;
+                log.player = pseudo;
+                chat.join(chat.lobby, this, true);
+                PlayerProfile profile = players.find(pseudo);
+                send("MSG|Bonjour " + (profile != null ? profile : pseudo));
+                send("MSG|Choisissez un mode : 1 = JvJ, 2 = IA, 3 = Tournoi, 4 = IA difficile");
+                send(Messages.ASKMODE);
+
+                String mode = in.readLine();
+                if (mode == null) return;
+                handshake.end();
+                if (handshake.shouldCommit()) {
+                    handshake.conn = log.conn;
+                    handshake.player = pseudo;
+                    handshake.mode = mode;
+                    handshake.commit();
+                }
+                if (draining) {
+                    send("MSG|Serveur en maintenance, reconnectez-vous plus tard.");
+                    return;
+                }
+                chooseMode(mode);
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    process(line);
+                }
+
+            } catch (IOException e) {
+                log.info("connection_lost", null);
+            } catch (RuntimeException e) {
+                log.error("handler_failed", null, e);
+            } finally {
+                log.info("disconnect", null);
+                handleDisconnect();
+                connections.remove(this);
+                try { socket.close(); } catch (IOException ignored) {}
+            }
+        }
+
+        /** Pseudo tel qu'il sera stocké et affiché partout : une seule ligne, sans tabulation. */
+        static String cleanPseudo(String raw) {
+            return raw.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ').trim();
+        }
+
+        /** Réponse à ASKMODE : lance la partie ou l'attente correspondante. */
+        void chooseMode(String mode) {
+            if (mode.equals("2")) startVsIA(false);
+            else if (mode.equals("4")) startVsIA(true);
+            else if (mode.equals("3")) joinTournament();
+            else startVsPlayer();
+        }
+
+        private void startVsIA(boolean hard) {
+            // drain() a pu commencer depuis la lecture du mode
+            if (draining) {
+                kick("MSG|Serveur en maintenance, reconnectez-vous plus tard.");
+                return;
+            }
+            vsIA = true;
+            side = 0;
+            gameChat = null;
+            game = Game.create();
+            ia = new IAHandler(this, game, hard);
+            game.placeFleets(myGrid, ia.myGrid);
+            enemyGrid = ia.myGrid;
+            log.game = game.id;
+            log.info("game_start", (hard ? "mode=ia_difficile" : "mode=ia") + " seed=" + Long.toHexString(game.seed));
+            send(hard ? "MSG|Partie contre l'IA difficile !" : "MSG|Partie contre l'IA !");
+            send(Messages.START);
+            sendSeq(Messages.TURN_YOU, 0);
+            myTurn = true;
+        }
+
+        private void startVsPlayer() {
+            synchronized (waitingPlayers) {
+                if (draining) {
+                    kick("MSG|Serveur en maintenance, reconnectez-vous plus tard.");
+                } else if (waitingPlayers.isEmpty()) {
+                    waitingPlayers.add(this);
+                    waiting = new Events.MatchmakingWait();
+                    waiting.begin();
+                    send("MSG|En attente d'un adversaire...");
+                } else {
+                    // Le joueur qui rejoint commence
+                    startMatch(this, waitingPlayers.remove(0), null);
+                }
+            }
+        }
+
+        private void joinTournament() {
+            Tournament t = openTournament();
+            while (t != null && !t.register(this)) t = openTournament();
+            if (t == null) {
+                kick("MSG|Serveur en maintenance, reconnectez-vous plus tard.");
+                return;
+            }
+            tournament = t;
+            gameOver = true; // pas de tir avant la première ronde
+        }
+
+        /** Prépare le joueur pour le match ; false, sans rien changer, si le match est déjà tranché. */
+        private boolean resetForMatch(Tournament.Match m) {
+            if (m.isDone()) return false;
+            match = m;
+            vsIA = false;
+            gameOver = false;
+            return true;
+        }
+
+        String pseudo() {
+            return pseudo;
+        }
+
+        boolean isDisconnected() {
+            return disconnected;
+        }
+
+        int conn() {
+            return log.conn;
+        }
+
+        String remote() {
+            return socket != null ? String.valueOf(socket.getRemoteSocketAddress()) : "-";
+        }
+
+        Game game() {
+            return game;
+        }
+
+        /** Adversaire JvJ de la partie en cours ou de la dernière, null contre l'IA. */
+        ClientHandler opponent() {
+            return opponent;
+        }
+
+        boolean isVsIA() {
+            return vsIA;
+        }
+
+        boolean isMyTurn() {
+            return myTurn;
+        }
+
+        /** Partie commencée et pas encore terminée. */
+        boolean inGame() {
+            return game != null && !gameOver && !disconnected;
+        }
+
+        /** État de la connexion, pour l'administration. */
+        String state() {
+            if (pseudo == null) return "accueil";
+            if (waiting != null) return "attente";
+            if (inGame()) return "partie";
+            if (tournament != null) return "tournoi";
+            return game != null ? "finie" : "salon";
+        }
+
+        /** Instantané des plateaux vus par ce joueur (voir Game.snapshot). */
+        String snapshot() {
+            Game g = game;
+            int[][] theirs = enemyGrid;
+            return g == null || theirs == null ? "-" : g.snapshot(side, myGrid, theirs, myTurn, gameOver);
+        }
+
+        /** Prévient le joueur puis ferme la connexion ; la boucle de lecture fait le reste. */
+        void kick(String reason) {
+            log.info("kicked", null);
+            send(reason);
+            if (socket == null) return;
+            try { socket.close(); } catch (IOException ignored) {}
+        }
+
+        /** Cases de bateau adverses touchées dans la partie en cours. */
+        int hitsScored() {
+            int[][] g = enemyGrid;
+            if (g == null) return 0;
+            int n = 0;
+            for (int[] row : g)
+                for (int c : row)
+                    if (c == 2) n++;
+            return n;
+        }
+
+        void process(String msg) {
+            // le classement reste consultable hors partie (lobby, fin de partie)
+            if (msg.startsWith("LEADERBOARD")) {
+                handleLeaderboard(msg);
+                return;
+            }
+            // resynchronisation, possible aussi après la fin de la partie
+            if (msg.startsWith("STATE")) {
+                handleState(msg);
+                return;
+            }
+            // le chat aussi : salon hors partie, canal de la partie pendant une partie JvJ
+            if (msg.startsWith("CHAT|")) {
+                handleChat(msg.substring(5));
+                return;
+            }
+            if (gameOver) return;
+
+            if (msg.startsWith("SHOT")) handleShotMsg(msg);
+            else if (msg.equalsIgnoreCase("QUIT")) handleQuit();
+            else if (msg.equalsIgnoreCase("TIMEOUT")) handleTimeout();
+        }
+
+        private void handleLeaderboard(String msg) {
+            if (msg.equalsIgnoreCase("LEADERBOARD|DAY")) send(leaderboard.dailyFrame());
+            else send(leaderboard.globalFrame());
+        }
+
+        /** SHOT|x|y, lu en place : rien n'est alloué pour un tir valide. */
+        private void handleShotMsg(String msg) {
+            int a = msg.indexOf('|');
+            int b = a < 0 ? -1 : msg.indexOf('|', a + 1);
+            if (a != 4 || b < 0 || msg.indexOf('|', b + 1) >= 0) {
+                send(Messages.ERR_FORMAT);
+                return;
+            }
+            if (!myTurn) {
+                send(Messages.ERR_NOT_YOUR_TURN);
+                return;
+            }
+            int x = coordinate(msg, a + 1, b);
+            int y = coordinate(msg, b + 1, msg.length());
+            if (x < 0 || y < 0) {
+                send(Messages.ERR_FORMAT);
+                return;
+            }
+            handleShot(x, y);
+        }
+
+        /** Entier de s[from, to) compris entre 0 et SIZE - 1, sinon -1. */
+        private static int coordinate(String s, int from, int to) {
+            if (from == to) return -1;
+            int v = 0;
+            for (int i = from; i < to; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9) return -1;
+                v = v * 10 + d;
+                if (v >= SIZE) return -1;
+            }
+            return v;
+        }
+
+        private void handleShot(int x, int y) {
+            Events.Shot event = new Events.Shot();
+            event.begin();
+            byte[] result = fire(x, y);
+            if (result != null) event.finish(game, pseudo, x, y, result);
+        }
+
+        /**
+         * Applique le tir, prévient les deux joueurs ; retourne le résultat,
+         * ou null si la partie a été arbitrée entre-temps (échéance de tournoi).
+         */
+        private byte[] fire(int x, int y) {
+            byte[] result;
+            int seq;
+            boolean sunkAll = false;
+            synchronized (game) {
+                if (gameOver) return null;
+                int cell = enemyGrid[x][y];
+                if (cell == -1 || cell == 2) {
+                    result = Messages.ALREADY;
+                    seq = -1;
+                } else if (cell == 0) {
+                    enemyGrid[x][y] = -1;
+                    result = Messages.MISS;
+                    seq = game.record(side, x, y, result);
+                } else {
+                    enemyGrid[x][y] = 2;
+                    result = isShipSunk(enemyGrid, x, y) ? Messages.SUNK : Messages.HIT;
+                    seq = game.record(side, x, y, result);
+                    // en tournoi, la victoire est disputée à l'échéance : match.decide tranche
+                    if (isAllShipsDestroyed(enemyGrid) && (match == null || match.decide(this))) {
+                        sunkAll = true;
+                        gameOver = true;
+                        if (!vsIA && opponent != null) opponent.gameOver = true;
+                    }
+                }
+            }
+            if (result == Messages.ALREADY) {
+                byte[] already = Messages.already(x, y);
+                if (already != null) send(already);
+                else sendShot(Messages.RESULT, Messages.ALREADY, x, y, -1);
+                return result;
+            }
+
+            // Envoi résultat au joueur
+            sendShot(Messages.RESULT, result, x, y, seq);
+
+            // Envoi tir à l'adversaire
+            if (!vsIA && opponent != null) {
+                opponent.sendShot(Messages.OPPONENT_FIRE, result, x, y, seq);
+            }
+
+            if (sunkAll) {
+                sendSeq(Messages.END_WIN, seq);
+                log.info("game_end", "result=WIN");
+                if (!vsIA && opponent != null) {
+                    opponent.sendSeq(Messages.END_LOSE, seq);
+                    opponent.log.info("game_end", "result=LOSE");
+                }
+                String loser = vsIA ? MatchResult.IA : opponent.pseudo;
+                players.recordResult(vsIA ? MatchResult.againstIA(pseudo, true, game.seed)
+                        : new MatchResult(pseudo, loser, game.seed));
+                Events.gameEnded(game, modeName(), "WIN", pseudo, loser);
+                if (match != null) match.finish();
+            } else nextTurn();
+            return result;
+        }
+
+        private void nextTurn() {
+            myTurn = false;
+
+            if (vsIA) ia.play();
+            else if (opponent != null) {
+                int seq = game.seq();
+                // TURN|OPP d'abord : une fois TURN|YOU reçu, l'adversaire peut tirer
+                // et son tir ne doit pas arriver ici avant notre TURN|OPP
+                sendSeq(Messages.TURN_OPP, seq);
+                opponent.myTurn = true;
+                opponent.sendSeq(Messages.TURN_YOU, seq);
+            }
+        }
+
+        private void handleQuit() {
+            Game g = game;
+            if (g != null) {
+                synchronized (g) {
+                    if (gameOver || match != null && !match.decide(opponent)) return;
+                    gameOver = true;
+                    if (!vsIA && opponent != null) opponent.gameOver = true;
+                }
+            }
+            sendSeq(Messages.END_ABANDON, g != null ? g.seq() : 0);
+            gameOver = true;
+            log.info("game_end", "result=ABANDON");
+            if (g != null) {
+                Events.gameEnded(g, modeName(), "ABANDON", vsIA ? MatchResult.IA : opponent.pseudo, pseudo);
+                recordAbandon(g);
+            }
+            if (!vsIA && opponent != null) {
+                opponent.send("OPPONENT_LEFT|Votre adversaire a quitté la partie.");
+                if (match != null) match.finish();
+            }
+        }
+
+        /** Abandon (QUIT ou déconnexion) : une défaite pour ce joueur, comme en fin normale. */
+        private void recordAbandon(Game g) {
+            if (vsIA) players.recordResult(MatchResult.againstIA(pseudo, false, g.seed));
+            else if (opponent != null) players.recordResult(new MatchResult(opponent.pseudo, pseudo, g.seed));
+        }
+
+        private void handleTimeout() {
+            send("MSG|Votre temps est écoulé !");
+            nextTurn();
+        }
+
+        /**
+         * STATE : instantané des deux plateaux. STATE|n : seulement les tirs
+         * de numéro > n, renvoyés tels quels (RESULT / OPPONENT_FIRE).
+         */
+        private void handleState(String msg) {
+            Game g = game;
+            if (g == null || enemyGrid == null) {
+                send(Messages.ERR_NO_GAME);
+                return;
+            }
+            int since = -1;
+            if (msg.length() > 6 && msg.charAt(5) == '|') {
+                try {
+                    since = Integer.parseInt(msg, 6, msg.length(), 10);
+                } catch (NumberFormatException e) {
+                    since = -1; // instantané complet
+                }
+            }
+            int[] missing = null;
+            String snapshot = null;
+            synchronized (g) {
+                if (since >= 0 && since <= g.seq()) missing = g.eventsAfter(since);
+                else snapshot = g.snapshot(side, myGrid, enemyGrid, myTurn, gameOver);
+            }
+            if (snapshot != null) {
+                send(snapshot);
+                return;
+            }
+            for (int i = 0; i < missing.length; i++) {
+                int e = missing[i];
+                byte[] prefix = Game.side(e) == side ? Messages.RESULT : Messages.OPPONENT_FIRE;
+                sendShot(prefix, Game.result(e), Game.x(e), Game.y(e), since + 1 + i);
+            }
+        }
+
+        private void handleChat(String text) {
+            if (text.isEmpty()) return;
+            ChatService.Channel channel = inGameChat() ? gameChat : chat.lobby;
+            byte[] error = chat.post(channel, this, chatQuota, text);
+            if (error != null) send(error);
+        }
+
+        /** En partie JvJ (ou de tournoi) non terminée : le chat va au canal de la partie. */
+        private boolean inGameChat() {
+            return gameChat != null && !gameOver;
+        }
+
+        ChatService.Outbox chatOut() {
+            return chatOut;
+        }
+
+        private void handleDisconnect() {
+            disconnected = true;
+            chat.leave(chat.lobby, this);
+            if (gameChat != null) chat.leave(gameChat, this);
+            // la partie en cours est perdue, sauf si elle vient de se terminer autrement
+            boolean abandoned = false;
+            Game g = game;
+            if (g != null) {
+                synchronized (g) {
+                    if (!gameOver && (match == null || match.decide(opponent))) {
+                        abandoned = true;
+                        gameOver = true;
+                        if (!vsIA && opponent != null) opponent.gameOver = true;
+                    }
+                }
+            }
+            if (abandoned && !vsIA && opponent != null) {
+                opponent.send("OPPONENT_LEFT|Votre adversaire s'est déconnecté.");
+                opponent.log.info("game_end", "result=OPPONENT_LEFT");
+                Events.gameEnded(g, modeName(), "DISCONNECT", opponent.pseudo, pseudo);
+                recordAbandon(g);
+                if (match != null) match.finish();
+            } else if (abandoned && vsIA) {
+                Events.gameEnded(g, modeName(), "DISCONNECT", MatchResult.IA, pseudo);
+                recordAbandon(g);
+            }
+            synchronized (waitingPlayers) {
+                if (waitingPlayers.remove(this)) endWait(false);
+            }
+            if (tournament != null) tournament.unregister(this);
+        }
+
+        private void endWait(boolean matched) {
+            Events.MatchmakingWait w = waiting;
+            if (w == null) return;
+            waiting = null;
+            w.end();
+            if (w.shouldCommit()) {
+                w.player = pseudo;
+                w.matched = matched;
+                w.commit();
+            }
+        }
+
+        String modeName() {
+            if (vsIA) return ia.brain != null ? "ia_difficile" : "ia";
+            return match != null ? "tournoi" : "jvj";
+        }
+
+        void send(String s) {
+            send(Messages.encode(s));
+        }
+
+        // appelé depuis le thread de la connexion, celui de l'adversaire, de l'IA et du tournoi
+        synchronized void send(byte[] frame) {
+            try {
+                out.write(frame);
+                out.flush();
+            } catch (IOException ignored) {
+                // la boucle de lecture détectera la déconnexion
+            }
+        }
+
+        /** seq < 0 : tir sans numéro de séquence (ALREADY). */
+        private synchronized void sendShot(byte[] prefix, byte[] result, int x, int y, int seq) {
+            int len = seq < 0 ? Messages.formatShot(frameBuf, prefix, result, x, y)
+                    : Messages.formatShot(frameBuf, prefix, result, x, y, seq);
+            try {
+                out.write(frameBuf, 0, len);
+                out.flush();
+            } catch (IOException ignored) {
+                // la boucle de lecture détectera la déconnexion
+            }
+        }
+
+        /** TURN|... ou END|... suivi de seq, le numéro du dernier tir de la partie. */
+        private synchronized void sendSeq(byte[] head, int seq) {
+            int len = Messages.formatSeq(frameBuf, head, seq);
+            try {
+                out.write(frameBuf, 0, len);
+                out.flush();
+            } catch (IOException ignored) {
+                // la boucle de lecture détectera la déconnexion
+            }
+        }
+
+        /** Coulé si aucune case voisine n'est un morceau de bateau intact. */
+        private boolean isShipSunk(int[][] g, int x, int y) {
+            if (x + 1 < SIZE && g[x + 1][y] == 1) return false;
+            if (x > 0 && g[x - 1][y] == 1) return false;
+            if (y + 1 < SIZE && g[x][y + 1] == 1) return false;
+            return y == 0 || g[x][y - 1] != 1;
+        }
+
+        private boolean isAllShipsDestroyed(int[][] g) {
+            for (int[] row : g)
+                for (int c : row)
+                    if (c == 1) return false;
+            return true;
+        }
+    }
+
+    static class IAHandler {
+        private final ClientHandler human;
+        private final Game game;
+        // null : IA facile, tirs au hasard
+        private final MonteCarloAI brain;
+        private boolean firstMove = true;
+        public int[][] myGrid = new int[SIZE][SIZE];
+
+        public IAHandler(ClientHandler h, Game g, boolean hard) {
+            human = h;
+            game = g;
+            brain = hard ? new MonteCarloAI(SIZE, Game.FLEET, g.rng.split(), AI_BUDGET_NANOS, openings) : null;
+        }
+
+        public void play() {
+            new Thread(() -> {
+                long start = System.nanoTime();
+                Events.AIMove move = new Events.AIMove();
+                move.begin();
+                int x, y;
+                if (brain != null) {
+                    int cell = brain.nextShot();
+                    // sans livre, les coups diffèrent : à savoir pour rejouer la partie
+                    if (firstMove && brain.bookPending()) human.log.info("ai_book_pending", null);
+                    firstMove = false;
+                    x = cell / SIZE;
+                    y = cell % SIZE;
+                } else {
+                    do {
+                        x = game.rng.nextInt(SIZE);
+                        y = game.rng.nextInt(SIZE);
+                    } while (human.myGrid[x][y] == -1 || human.myGrid[x][y] == 2);
+                }
+                move.end();
+                if (move.shouldCommit()) {
+                    move.game = game.id;
+                    move.hard = brain != null;
+                    move.x = x;
+                    move.y = y;
+                    move.commit();
+                }
+                // le temps de réflexion est pris sur la pause habituelle de 700 ms
+                long waitMs = 700 - (System.nanoTime() - start) / 1_000_000;
+                if (waitMs > 0) {
+                    try { Thread.sleep(waitMs); } catch (Exception ignored) {}
+                }
+
+                byte[] result;
+                int seq;
+                boolean lost;
+                synchronized (game) {
+                    // le joueur a pu abandonner ou se déconnecter pendant la pause
+                    if (human.gameOver) return;
+                    if (human.myGrid[x][y] == 0) {
+                        human.myGrid[x][y] = -1;
+                        result = Messages.MISS;
+                    } else {
+                        human.myGrid[x][y] = 2;
+                        result = human.isShipSunk(human.myGrid, x, y) ? Messages.SUNK : Messages.HIT;
+                    }
+                    seq = game.record(1, x, y, result);
+                    lost = human.isAllShipsDestroyed(human.myGrid);
+                    if (lost) human.gameOver = true;
+                }
+                if (brain != null) brain.record(x, y, result);
+
+                human.sendShot(Messages.OPPONENT_FIRE, result, x, y, seq);
+
+                if (lost) {
+                    human.sendSeq(Messages.END_LOSE, seq);
+                    human.log.info("game_end", "result=LOSE");
+                    Events.gameEnded(game, human.modeName(), "WIN", MatchResult.IA, human.pseudo);
+                    players.recordResult(MatchResult.againstIA(human.pseudo, false, game.seed));
+                    return;
+                }
+
+                human.myTurn = true;
+                human.sendSeq(Messages.TURN_YOU, seq);
+
+            }).start();
+        }
+    }
+}
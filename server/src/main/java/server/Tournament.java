@@ -0,0 +1,269 @@
+package server;
+
+import protocol.Messages;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tournoi à élimination directe ou en rondes suisses.
+ *
+ * Les joueurs s'inscrivent avec le mode 3. Dès que le tournoi est complet,
+ * chaque ronde est appariée puis toutes ses parties sont lancées en même
+ * temps sur l'executor du serveur. L'échéance de la ronde est programmée
+ * avant le lancement des parties, sur un scheduler qui ne fait rien d'autre :
+ * elle tombe à l'heure même si des centaines de parties démarrent ensemble.
+ * Une partie encore en cours à l'échéance est arbitrée aux touches.
+ */
+final class Tournament {
+
+    enum Format { KNOCKOUT, SWISS }
+
+    private final int id;
+    private final int size;
+    private final Format format;
+    private final long roundMillis;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+    private final ChatService chat;
+
+    private final List<Server.ClientHandler> registered = new ArrayList<>();
+    private boolean started = false;
+
+    // état des rondes, modifié par un seul thread à la fois (fin de ronde)
+    private List<Server.ClientHandler> alive;
+    private final Map<Server.ClientHandler, Integer> points = new HashMap<>();
+    // adversaires déjà rencontrés, par joueur (ClientHandler : égalité d'identité)
+    private final Map<Server.ClientHandler, Set<Server.ClientHandler>> played = new HashMap<>();
+    private final Set<Server.ClientHandler> hadBye = new HashSet<>();
+    private int round = 0;
+    private int swissRounds;
+
+    private volatile List<Match> currentMatches = List.of();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile ScheduledFuture<?> deadline;
+
+    Tournament(int id, int size, Format format, long roundMillis,
+               ExecutorService executor, ScheduledExecutorService scheduler, ChatService chat) {
+        this.id = id;
+        this.size = size;
+        this.format = format;
+        this.roundMillis = roundMillis;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.chat = chat;
+    }
+
+    /** Inscrit le joueur. Retourne false si le tournoi a déjà commencé. */
+    boolean register(Server.ClientHandler p) {
+        synchronized (registered) {
+            if (started) return false;
+            registered.add(p);
+            broadcast(registered, "MSG|Tournoi #" + id + " : " + p.pseudo() + " inscrit ("
+                    + registered.size() + "/" + size + ")");
+            if (registered.size() < size) return true;
+            started = true;
+        }
+        executor.execute(this::start);
+        return true;
+    }
+
+    /** Retire un joueur parti avant le début du tournoi. */
+    void unregister(Server.ClientHandler p) {
+        synchronized (registered) {
+            if (!started) registered.remove(p);
+        }
+    }
+
+    /**
+     * Annule le tournoi s'il n'a pas commencé (arrêt du serveur) ; retourne
+     * les inscrits, à renvoyer.
+     */
+    List<Server.ClientHandler> cancel() {
+        synchronized (registered) {
+            if (started) return List.of();
+            started = true;
+            return new ArrayList<>(registered);
+        }
+    }
+
+    boolean isStarted() {
+        synchronized (registered) {
+            return started;
+        }
+    }
+
+    private synchronized void start() {
+        alive = new ArrayList<>(registered);
+        for (Server.ClientHandler p : alive) points.put(p, 0);
+        swissRounds = 32 - Integer.numberOfLeadingZeros(Math.max(1, alive.size() - 1));
+        broadcast(alive, "MSG|Tournoi #" + id + " : début (" + format + ", " + alive.size() + " joueurs)");
+        nextRound();
+    }
+
+    private synchronized void nextRound() {
+        alive.removeIf(Server.ClientHandler::isDisconnected);
+        if (Server.isDraining()) {
+            // arrêt du serveur : les parties de la ronde sont finies, pas de suivante
+            broadcast(alive, "MSG|Tournoi #" + id + " interrompu : maintenance du serveur");
+            return;
+        }
+        if (isFinished()) {
+            announceWinner();
+            return;
+        }
+        round++;
+
+        List<Match> matches = new ArrayList<>();
+        Server.ClientHandler bye = pair(matches);
+        if (bye != null) {
+            hadBye.add(bye);
+            points.merge(bye, 1, Integer::sum);
+            bye.send("MSG|Tournoi #" + id + " : ronde " + round + ", exempté (victoire)");
+        }
+
+        currentMatches = matches;
+        remaining.set(matches.size());
+        if (matches.isEmpty()) {
+            executor.execute(this::nextRound);
+            return;
+        }
+
+        // l'échéance d'abord : elle ne dépend pas du temps de lancement des parties
+        deadline = scheduler.schedule(this::onDeadline, roundMillis, TimeUnit.MILLISECONDS);
+        for (Match m : matches) {
+            executor.execute(() -> {
+                m.a.send("MSG|Tournoi #" + id + " : ronde " + round + ", adversaire " + m.b.pseudo());
+                m.b.send("MSG|Tournoi #" + id + " : ronde " + round + ", adversaire " + m.a.pseudo());
+                Server.startMatch(m.a, m.b, m);
+            });
+        }
+    }
+
+    private boolean isFinished() {
+        if (alive.size() <= 1) return true;
+        return format == Format.SWISS && round >= swissRounds;
+    }
+
+    /** Forme les paires de la ronde ; retourne le joueur exempté s'il y en a un. */
+    private Server.ClientHandler pair(List<Match> matches) {
+        List<Server.ClientHandler> pool = new ArrayList<>(alive);
+        Server.ClientHandler bye = null;
+
+        if (format == Format.KNOCKOUT) {
+            Collections.shuffle(pool);
+            if (pool.size() % 2 == 1) bye = pool.remove(pool.size() - 1);
+            for (int i = 0; i + 1 < pool.size(); i += 2) matches.add(new Match(pool.get(i), pool.get(i + 1)));
+            return bye;
+        }
+
+        // rondes suisses : classement par points, exemption au moins bien classé qui n'en a pas eu
+        pool.sort((p, q) -> Integer.compare(points.get(q), points.get(p)));
+        if (pool.size() % 2 == 1) {
+            for (int i = pool.size() - 1; i >= 0; i--) {
+                if (!hadBye.contains(pool.get(i))) {
+                    bye = pool.remove(i);
+                    break;
+                }
+            }
+            if (bye == null) bye = pool.remove(pool.size() - 1);
+        }
+        while (!pool.isEmpty()) {
+            Server.ClientHandler a = pool.remove(0);
+            int j = 0;
+            // on évite de rejouer le même adversaire si possible
+            for (int k = 0; k < pool.size(); k++) {
+                if (!played.getOrDefault(a, Set.of()).contains(pool.get(k))) {
+                    j = k;
+                    break;
+                }
+            }
+            Server.ClientHandler b = pool.remove(j);
+            played.computeIfAbsent(a, p -> new HashSet<>()).add(b);
+            played.computeIfAbsent(b, p -> new HashSet<>()).add(a);
+            matches.add(new Match(a, b));
+        }
+        return bye;
+    }
+
+    private void onDeadline() {
+        String note = "MSG|Tournoi #" + id + " : temps de ronde écoulé";
+        for (Match m : currentMatches) {
+            if (m.isDone()) continue;
+            // arbitrage aux touches ; les envois bloquent sur les sockets : pas sur ce thread
+            executor.execute(() -> Server.endByDecision(m, note));
+        }
+    }
+
+    // appelé sous le verrou du tournoi
+    private void onMatchFinished(Match m) {
+        Server.ClientHandler winner = m.winner.get();
+        Server.ClientHandler loser = winner == m.a ? m.b : m.a;
+        points.merge(winner, 1, Integer::sum);
+        if (format == Format.KNOCKOUT) {
+            alive.remove(loser);
+            loser.send("MSG|Tournoi #" + id + " : vous êtes éliminé.");
+        }
+        if (remaining.decrementAndGet() == 0) {
+            ScheduledFuture<?> d = deadline;
+            if (d != null) d.cancel(false);
+            executor.execute(this::nextRound);
+        }
+    }
+
+    private void announceWinner() {
+        List<Server.ClientHandler> ranking = new ArrayList<>(points.keySet());
+        ranking.sort((p, q) -> Integer.compare(points.get(q), points.get(p)));
+        Server.ClientHandler champion = format == Format.KNOCKOUT && alive.size() == 1 ? alive.get(0)
+                : ranking.isEmpty() ? null : ranking.get(0);
+        String msg = "MSG|Tournoi #" + id + " terminé, vainqueur : "
+                + (champion != null ? champion.pseudo() : "aucun");
+        broadcast(ranking, msg);
+    }
+
+    private static void broadcast(List<Server.ClientHandler> to, String msg) {
+        byte[] frame = Messages.encode(msg);
+        for (Server.ClientHandler p : to) {
+            if (!p.isDisconnected()) p.send(frame);
+        }
+    }
+
+    /**
+     * Une partie du tournoi. Fin normale, abandon et échéance se disputent
+     * decide() sous le verrou de la partie : le seul gagnant annonce la fin
+     * (END, résultat enregistré) puis appelle finish().
+     */
+    final class Match {
+        final Server.ClientHandler a;
+        final Server.ClientHandler b;
+        private final AtomicReference<Server.ClientHandler> winner = new AtomicReference<>();
+        // partie et canal de chat, fixés par Server.startMatch sous le verrou du match ;
+        // game reste null si le match est tranché avant d'être lancé
+        volatile Game game;
+        volatile ChatService.Channel channel;
+
+        Match(Server.ClientHandler a, Server.ClientHandler b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        boolean isDone() {
+            return winner.get() != null;
+        }
+
+        /** Fixe le vainqueur ; false si le match est déjà tranché. */
+        boolean decide(Server.ClientHandler w) {
+            return winner.compareAndSet(null, w);
+        }
+
+        /** Appelé une fois, par celui qui a gagné decide(), après avoir annoncé la fin. */
+        void finish() {
+            if (channel != null) chat.close(channel);
+            synchronized (Tournament.this) {
+                onMatchFinished(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package server;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Budgets du chemin de tir, vérifiés en mémoire, sans socket ni client :
+ * des parties JvJ scriptées passent par ClientHandler.chooseMode (mise en
+ * relation) puis ClientHandler.process("SHOT|x|y"), comme les lignes lues
+ * sur le réseau.
+ *
+ *  - octets alloués par tir (hors tir final), mesurés par ThreadMXBean sur
+ *    le thread qui joue : un split, une concaténation ou un tableau de
+ *    directions remis dans handleShotMsg, handleShot ou isShipSunk les dépasse ;
+ *  - octets alloués par partie, mise en relation et fin de partie comprises ;
+ *  - sur demande (bn.budget.p99=true), p99 de la durée d'un tir, plusieurs
+ *    threads se disputant la file d'attente JvJ et jouant en même temps.
+ *
+ * Lancement : mvn verify (octets), mvn -Pbudget verify (octets et p99). Sort
+ * avec le code 1 si un budget est dépassé. Les budgets et la charge se
+ * règlent par -Dbn.budget.*.
+ */
+final class ShotBudget {
+
+    private static final long SHOT_BYTES = Long.getLong("bn.budget.shotBytes", 0);
+    private static final long GAME_BYTES = Long.getLong("bn.budget.gameBytes", 16 * 1024);
+    private static final long P99_MICROS = Long.getLong("bn.budget.p99Micros", 1000);
+    // la latence dépend de la machine : vérifiée seulement sur demande
+    private static final boolean P99 = Boolean.getBoolean("bn.budget.p99");
+
+    private static final int WARMUP_GAMES = Integer.getInteger("bn.budget.warmupGames", 20_000);
+    private static final int GAMES = Integer.getInteger("bn.budget.games", 2_000);
+    private static final int THREADS = Integer.getInteger("bn.budget.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private static final int GAMES_PER_THREAD = Integer.getInteger("bn.budget.gamesPerThread", 5_000);
+
+    private static final int SIZE = 4;
+    // "SHOT|x|y" par case, construits une fois : le banc lui-même n'alloue pas pendant la mesure
+    private static final String[] SHOTS = new String[SIZE * SIZE];
+
+    static {
+        for (int i = 0; i < SHOTS.length; i++) SHOTS[i] = "SHOT|" + i / SIZE + "|" + i % SIZE;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Totaux d'une série de parties jouées sur un thread. */
+    private static final class Totals {
+        long shotBytes;
+        int shots;
+        long gameBytes;
+        int games;
+        // durée de chaque tir, en nanosecondes
+        long[] latencies;
+        int latencyCount;
+
+        Totals(int maxShots) {
+            latencies = new long[maxShots];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("bn.log.dir") == null) {
+            System.setProperty("bn.log.dir", Files.createTempDirectory("bn-budget").toString());
+        }
+        System.setProperty("bn.log.console", "false");
+        if (!THREAD_MX.isThreadAllocatedMemorySupported()) {
+            System.out.println("ThreadMXBean : mesure des allocations non disponible sur cette JVM");
+            System.exit(1);
+        }
+        THREAD_MX.setThreadAllocatedMemoryEnabled(true);
+        Server.init(new NoStore(), null);
+
+        // chauffe : le JIT compile le chemin de tir avant toute mesure
+        playSerial(WARMUP_GAMES);
+        Totals serial = playSerial(GAMES);
+
+        long perShot = serial.shotBytes / serial.shots;
+        long perGame = serial.gameBytes / serial.games;
+        System.out.printf("tir    : %d octets alloués (budget %d), %d tirs%n", perShot, SHOT_BYTES, serial.shots);
+        System.out.printf("partie : %d octets alloués (budget %d), %d parties%n", perGame, GAME_BYTES, serial.games);
+
+        List<String> failures = new ArrayList<>();
+        if (perShot > SHOT_BYTES) failures.add("allocations par tir : " + perShot + " > " + SHOT_BYTES);
+        if (perGame > GAME_BYTES) failures.add("allocations par partie : " + perGame + " > " + GAME_BYTES);
+        if (P99) {
+            long[] all = playConcurrent();
+            double p99 = all[(int) (all.length * 0.99)] / 1000.0;
+            System.out.printf("p99    : %.1f µs par tir (budget %d), %d tirs sur %d threads, max %d µs%n",
+                    p99, P99_MICROS, all.length, THREADS, all[all.length - 1] / 1000);
+            if (p99 > P99_MICROS) failures.add("p99 par tir : " + String.format("%.1f", p99) + " µs > " + P99_MICROS + " µs");
+        }
+        Log.close();
+        for (String f : failures) System.out.println("BUDGET DÉPASSÉ : " + f);
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    /** Parties l'une après l'autre, par la file d'attente JvJ du serveur. */
+    private static Totals playSerial(int games) {
+        Totals t = new Totals(games * SHOTS.length * 2);
+        for (int i = 0; i < games; i++) {
+            Server.ClientHandler a = new Server.ClientHandler("a" + i, OutputStream.nullOutputStream());
+            Server.ClientHandler b = new Server.ClientHandler("b" + i, OutputStream.nullOutputStream());
+            long before = allocated();
+            a.chooseMode("1"); // en attente
+            b.chooseMode("1"); // trouve a, commence
+            play(a, b, t);
+            t.gameBytes += allocated() - before;
+            t.games++;
+        }
+        return t;
+    }
+
+    /**
+     * THREADS threads inscrivant chacun des joueurs dans la file d'attente JvJ
+     * partagée : un joueur qui trouve un adversaire (inscrit par n'importe
+     * quel thread) lance la partie, que son thread joue jusqu'au bout.
+     * Retourne toutes les durées de tir, triées.
+     */
+    private static long[] playConcurrent() throws InterruptedException {
+        Totals[] totals = new Totals[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        for (int n = 0; n < THREADS; n++) {
+            Totals t = totals[n] = new Totals(GAMES_PER_THREAD * SHOTS.length * 2);
+            int thread = n;
+            threads[n] = new Thread(() -> {
+                int games = 0;
+                for (int i = 0; games < GAMES_PER_THREAD; i++) {
+                    Server.ClientHandler p = new Server.ClientHandler("t" + thread + "p" + i, OutputStream.nullOutputStream());
+                    p.chooseMode("1");
+                    if (!p.inGame()) continue; // en attente : un autre joueur le trouvera
+                    play(p, p.opponent(), t);
+                    games++;
+                }
+            }, "Budget-" + n);
+        }
+        for (Thread th : threads) th.start();
+        for (Thread th : threads) th.join();
+
+        int count = 0;
+        for (Totals t : totals) count += t.latencyCount;
+        long[] all = new long[count];
+        int at = 0;
+        for (Totals t : totals) {
+            System.arraycopy(t.latencies, 0, all, at, t.latencyCount);
+            at += t.latencyCount;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    /** Chaque joueur tire case après case jusqu'à la fin de la partie. */
+    private static void play(Server.ClientHandler a, Server.ClientHandler b, Totals t) {
+        int nextA = 0, nextB = 0;
+        while (a.inGame() && b.inGame()) {
+            boolean aPlays = a.isMyTurn();
+            Server.ClientHandler p = aPlays ? a : b;
+            String shot = SHOTS[aPlays ? nextA++ : nextB++];
+            long bytes = allocated();
+            long start = System.nanoTime();
+            p.process(shot);
+            long took = System.nanoTime() - start;
+            bytes = allocated() - bytes;
+            t.latencies[t.latencyCount++] = took;
+            // le tir final termine la partie (résultat, journal) : compté dans le budget de la partie
+            if (p.inGame()) {
+                t.shotBytes += bytes;
+                t.shots++;
+            }
+        }
+    }
+
+    private static long allocated() {
+        return THREAD_MX.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Stockage qui ne garde rien : le banc mesure le chemin de tir, pas le disque. */
+    private static final class NoStore implements PlayerStore {
+        @Override
+        public PlayerProfile find(String pseudo) {
+            return null;
+        }
+
+        @Override
+        public void recordResult(MatchResult result) {
+        }
+
+        @Override
+        public void forEachProfile(Consumer<PlayerProfile> action) {
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}